@@ -21,10 +21,12 @@ public class App extends Application {
             return;
         }
         ProjectAnalyzer analyzer = new ProjectAnalyzer();
+        if (!analyzer.isSpilling()) analyzer.enableFactsCache();
         ProjectModel model = analyzer.analyze(root.toPath());
         model.computeCycles();
-        GraphView view = new GraphView(model, root.toPath());
+        GraphView view = new GraphView(model, root.toPath(), analyzer);
         view.show(stage);
+        stage.setOnHidden(e -> model.close());
     }
     public static void main(String[] args) {
         launch(args);
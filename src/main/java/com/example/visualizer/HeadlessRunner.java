@@ -0,0 +1,244 @@
+package com.example.visualizer;
+
+import com.example.visualizer.analyzer.ProjectAnalyzer;
+import com.example.visualizer.cycles.CycleBreaker;
+import com.example.visualizer.diff.ArchitectureDiff;
+import com.example.visualizer.model.Dependency;
+import com.example.visualizer.model.PackageMetrics;
+import com.example.visualizer.model.ProjectModel;
+import com.example.visualizer.perf.Profiler;
+import com.example.visualizer.rules.RuleSet;
+import com.example.visualizer.rules.Violation;
+import com.example.visualizer.server.ModelServer;
+import com.example.visualizer.util.JsonWriter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+public class HeadlessRunner {
+    private Path root;
+    private Path out;
+    private Path spillDir = Paths.get(System.getProperty("java.io.tmpdir"));
+    private long spillBufferMb;
+    private boolean metrics;
+    private boolean cycleCuts, refineCuts;
+    private Path rules;
+    private String revision;
+    private String baseline;
+    private Integer serve;
+
+    public static void main(String[] args) {
+        HeadlessRunner runner = new HeadlessRunner();
+        try {
+            runner.parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: HeadlessRunner <project root or jar> [--profile] [--metrics] [--cycle-cuts] [--refine-cuts] [--rules <file>] [--out <file>]"
+                    + " [--git <rev>] [--diff-against <dir, or rev with --git>]"
+                    + " [--spill-dir <dir>] [--spill-buffer-mb <n>] [--serve <port>]");
+            System.exit(2);
+        }
+        try {
+            System.exit(runner.run());
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } catch (InterruptedException e) {
+            System.exit(0);
+        }
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--profile" -> Profiler.get().setEnabled(true);
+                case "--metrics" -> metrics = true;
+                case "--cycle-cuts" -> cycleCuts = true;
+                case "--refine-cuts" -> cycleCuts = refineCuts = true;
+                case "--rules"   -> rules = Paths.get(value(args, ++i, "--rules"));
+                case "--git"     -> revision = value(args, ++i, "--git");
+                case "--diff-against" -> baseline = value(args, ++i, "--diff-against");
+                case "--serve"   -> serve = Integer.parseInt(value(args, ++i, "--serve"));
+                case "--out"     -> out = Paths.get(value(args, ++i, "--out"));
+                case "--spill-dir" -> {
+                    spillDir = Paths.get(value(args, ++i, "--spill-dir"));
+                    if (spillBufferMb == 0) spillBufferMb = 64;
+                }
+                case "--spill-buffer-mb" -> spillBufferMb = Long.parseLong(value(args, ++i, "--spill-buffer-mb"));
+                default -> {
+                    if (args[i].startsWith("--") || root != null)
+                        throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+                    root = Paths.get(args[i]);
+                }
+            }
+        }
+        if (root == null) throw new IllegalArgumentException("Missing project root");
+        if (!isProject(root))
+            throw new IllegalArgumentException("Not a directory or jar: " + root);
+        if (serve != null && (revision != null || baseline != null))
+            throw new IllegalArgumentException("--serve cannot be combined with --git or --diff-against");
+        if (serve != null && spillBufferMb > 0)
+            throw new IllegalArgumentException("--serve cannot be combined with --spill-dir or --spill-buffer-mb");
+        if (baseline != null && revision == null && !isProject(Paths.get(baseline)))
+            throw new IllegalArgumentException("Baseline is not a directory or jar: " + baseline
+                    + " (use --git <rev> to compare against a git revision)");
+    }
+
+    private static boolean isProject(Path path) {
+        return Files.isDirectory(path) || (Files.isRegularFile(path) && path.toString().endsWith(".jar"));
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) throw new IllegalArgumentException("Missing value for " + option);
+        return args[i];
+    }
+
+    private int run() throws IOException, InterruptedException {
+        RuleSet ruleSet = rules == null ? null : RuleSet.load(rules);
+        ProjectAnalyzer analyzer = new ProjectAnalyzer();
+        if (spillBufferMb > 0) analyzer.setSpill(spillDir, spillBufferMb << 20);
+        ProjectModel before = null;
+        if (baseline != null) {
+            if (!analyzer.isSpilling()) analyzer.enableFactsCache();
+            before = analyze(analyzer, baseline);
+            before.computeCycles();
+        }
+        if (serve != null && analyzer.isSpilling())
+            throw new IllegalArgumentException("--serve cannot be combined with -Dvisualizer.spillBufferMb");
+        if (serve != null) analyzer.enableFactsCache();
+        ProjectModel model = analyze(analyzer, revision);
+        model.computeCycles();
+        if (serve != null) {
+            ModelServer server = new ModelServer(root, analyzer, model);
+            server.start(serve);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }));
+            Thread.currentThread().join();
+        }
+
+        Writer writer = out == null
+                ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                : Files.newBufferedWriter(out, StandardCharsets.UTF_8);
+        JsonWriter w = new JsonWriter(writer);
+        w.beginObject();
+        w.name("root").value(root.toAbsolutePath().toString());
+        writeSummary(w, model);
+        if (metrics) writeMetrics(w, model.getMetrics());
+        if (cycleCuts) {
+            w.name("cycleCuts");
+            CycleBreaker.compute(model, refineCuts).writeJson(w);
+        }
+        if (before != null) {
+            w.name("reusedFiles").value(analyzer.getReusedFileCount());
+            w.name("diff");
+            ArchitectureDiff.compute(before, model).writeJson(w);
+            before.close();
+        }
+        List<Violation> violations = Collections.emptyList();
+        if (ruleSet != null) {
+            violations = ruleSet.check(model);
+            writeViolations(w, ruleSet, violations);
+        }
+        if (Profiler.get().isEnabled()) {
+            w.name("profile");
+            Profiler.get().writeJson(w);
+        }
+        w.endObject();
+        writer.write(System.lineSeparator());
+        if (out == null) w.flush();
+        else w.close();
+        model.close();
+        return violations.isEmpty() ? 0 : 3;
+    }
+
+    private ProjectModel analyze(ProjectAnalyzer analyzer, String snapshot) throws IOException {
+        if (revision != null) {
+            return analyzer.analyzeRevision(root, snapshot);
+        }
+        return analyzer.analyze(snapshot == null ? root : Paths.get(snapshot));
+    }
+
+    private void writeSummary(JsonWriter w, ProjectModel model) throws IOException {
+        int classes = model.getPackages().stream().mapToInt(p -> p.getClasses().size()).sum();
+        int edges = model.getPackageDependencies().values().stream().mapToInt(Set::size).sum();
+        w.name("packages").value(model.getPackageNames().size());
+        w.name("classes").value(classes);
+        w.name("dependencies").value(model.getDependencyCount());
+        w.name("packageEdges").value(edges);
+        w.name("maxDepth").value(model.getMaxDependencyDepth());
+        w.name("cycles").beginArray();
+        for (Set<String> cycle : model.getCycles()) {
+            List<String> sorted = new ArrayList<>(cycle);
+            Collections.sort(sorted);
+            w.beginArray();
+            for (String pkg : sorted) w.value(pkg);
+            w.endArray();
+        }
+        w.endArray();
+    }
+
+    private void writeViolations(JsonWriter w, RuleSet ruleSet, List<Violation> violations) throws IOException {
+        w.name("rules").beginObject();
+        w.name("checked").value(ruleSet.size());
+        w.name("violations").beginArray();
+        for (Violation v : violations) {
+            w.beginObject();
+            w.name("rule").value(v.getRule());
+            w.name("message").value(v.getMessage());
+            w.name("chain").beginArray();
+            for (Violation.Link link : v.getChain()) {
+                w.beginObject();
+                w.name("from").value(link.getFromPkg());
+                w.name("to").value(link.getToPkg());
+                w.name("weight").value(link.getWeight());
+                w.name("dependencies").beginArray();
+                for (int i = 0; i < link.getExamples().size(); i++) {
+                    Dependency d = link.getExamples().get(i);
+                    w.beginObject()
+                            .name("from").value(d.getFromPkg() + "." + d.getFrom())
+                            .name("to").value(d.getTo())
+                            .name("type").value(d.getType().name())
+                            .name("count").value(link.getCounts().get(i))
+                            .endObject();
+                }
+                w.endArray();
+                w.endObject();
+            }
+            w.endArray();
+            w.endObject();
+        }
+        w.endArray();
+        w.endObject();
+    }
+
+    private void writeMetrics(JsonWriter w, PackageMetrics m) throws IOException {
+        w.name("betweennessSampled").value(m.isBetweennessSampled());
+        w.name("metrics").beginArray();
+        for (int id : m.topByPageRank(m.size())) {
+            w.beginObject()
+                    .name("package").value(m.name(id))
+                    .name("classes").value(m.getGraph().classCount(id))
+                    .name("fanIn").value(m.getFanIn(id))
+                    .name("fanOut").value(m.getFanOut(id))
+                    .name("instability").value(m.getInstability(id))
+                    .name("abstractness").value(m.getAbstractness(id))
+                    .name("distance").value(m.getDistance(id))
+                    .name("pageRank").value(m.getPageRank(id))
+                    .name("betweenness").value(m.getBetweenness(id))
+                    .endObject();
+        }
+        w.endArray();
+    }
+}
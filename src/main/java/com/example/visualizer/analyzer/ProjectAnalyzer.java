@@ -1,26 +1,76 @@
 package com.example.visualizer.analyzer;
 
 import com.example.visualizer.model.Dependency;
+import com.example.visualizer.model.DependencySpill;
 import com.example.visualizer.model.ProjectModel;
+import com.example.visualizer.perf.Profiler;
+import com.example.visualizer.perf.Profiler.Phase;
 import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.util.Enumeration;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class ProjectAnalyzer {
+    private final Profiler profiler = Profiler.get();
+    private Path spillDir = Paths.get(System.getProperty("visualizer.spillDir",
+            System.getProperty("java.io.tmpdir")));
+    private long spillBufferBytes = Long.getLong("visualizer.spillBufferMb", 0L) << 20;
+    private Map<String, SourceFacts> factsCache;
+    private final Set<String> usedKeys = ConcurrentHashMap.newKeySet();
+    private Map<Path, String> sources;
+    private Path sourcesRoot;
+    private int reused;
+
+    public void setSpill(Path dir, long bufferBytes) {
+        this.spillDir = dir;
+        this.spillBufferBytes = bufferBytes;
+    }
+
+    public boolean isSpilling() {
+        return spillBufferBytes > 0;
+    }
+
+    public void enableFactsCache() {
+        if (factsCache == null) factsCache = new ConcurrentHashMap<>();
+    }
+
+    public void pruneFactsCache() {
+        if (factsCache == null) return;
+        factsCache.keySet().retainAll(usedKeys);
+        usedKeys.clear();
+    }
+
+    public int getReusedFileCount() {
+        return reused;
+    }
+
     public ProjectModel analyze(Path root) {
-        ProjectModel model = new ProjectModel();
+        ProjectModel model = newModel();
         JavaParser parser = new JavaParser();
+        profiler.startAnalysis();
+        sources = factsCache != null && Files.isDirectory(root) ? new LinkedHashMap<>() : null;
+        sourcesRoot = root;
         try {
             if (Files.isDirectory(root)) {
-                Files.walk(root)
-                        .filter(p -> p.toString().endsWith(".java"))
-                        .forEach(p -> parseSource(p, parser, model));
+                List<Path> sources;
+                try (Profiler.Span span = profiler.begin(Phase.WALK);
+                     Stream<Path> walk = Files.walk(root)) {
+                    sources = walk.filter(p -> p.toString().endsWith(".java"))
+                            .collect(Collectors.toList());
+                }
+                sources.forEach(p -> readSource(p, parser, model));
             } else if (root.toString().endsWith(".jar")) {
                 try (JarFile jar = new JarFile(root.toFile())) {
                     Enumeration<JarEntry> entries = jar.entries();
@@ -33,34 +83,238 @@ public class ProjectAnalyzer {
                 }
             }
         } catch (IOException e) {
-            e.printStackTrace();
+            profiler.recordReadFailure(root, e);
+        } catch (UncheckedIOException e) {
+            profiler.recordReadFailure(root, e.getCause());
+        }
+        model.computePackageDependencies();
+        profiler.finishAnalysis();
+        return model;
+    }
+
+    public ProjectModel reanalyze(Path root, Collection<Path> changed) {
+        if (sources == null || !root.equals(sourcesRoot)) return analyze(root);
+        ProjectModel model = newModel();
+        JavaParser parser = new JavaParser();
+        profiler.startAnalysis();
+        Set<Path> stale = new LinkedHashSet<>();
+        for (Path path : changed) {
+            sources.keySet().removeIf(p -> p.startsWith(path));
+            if (Files.isDirectory(path)) {
+                try (Profiler.Span span = profiler.begin(Phase.WALK);
+                     Stream<Path> walk = Files.walk(path)) {
+                    walk.filter(p -> p.toString().endsWith(".java")).forEach(stale::add);
+                } catch (IOException e) {
+                    profiler.recordReadFailure(path, e);
+                } catch (UncheckedIOException e) {
+                    profiler.recordReadFailure(path, e.getCause());
+                }
+            } else if (path.toString().endsWith(".java") && Files.isRegularFile(path)) {
+                stale.add(path);
+            }
+        }
+        sources.forEach((path, key) -> {
+            if (!factsCache.containsKey(key)) stale.add(path);
+        });
+        stale.forEach(p -> readFacts(p, parser));
+        sources.forEach((path, key) -> {
+            SourceFacts facts = factsCache.get(key);
+            if (facts == null) return;
+            usedKeys.add(key);
+            if (!stale.contains(path)) reused++;
+            facts.applyTo(model);
+        });
+        model.computePackageDependencies();
+        profiler.finishAnalysis();
+        return model;
+    }
+
+    public ProjectModel analyzeRevision(Path repo, String rev) throws IOException {
+        ProjectModel model = newModel();
+        JavaParser parser = new JavaParser();
+        profiler.startAnalysis();
+        List<String[]> blobs = new ArrayList<>();
+        try (Profiler.Span span = profiler.begin(Phase.WALK)) {
+            String tree = new String(git(repo, "ls-tree", "-r", "-z", rev), StandardCharsets.UTF_8);
+            for (String entry : tree.split("\0")) {
+                int tab = entry.indexOf('\t');
+                if (tab < 0 || !entry.endsWith(".java")) continue;
+                String[] meta = entry.substring(0, tab).split(" ");
+                if (meta.length == 3 && meta[1].equals("blob")) {
+                    blobs.add(new String[]{meta[2], entry.substring(tab + 1)});
+                }
+            }
+        }
+        Collection<String> missing = factsCache == null ? new ArrayList<>() : new LinkedHashSet<>();
+        for (String[] blob : blobs) {
+            if (factsCache == null || !factsCache.containsKey(blob[0])) missing.add(blob[0]);
+        }
+        Process cat = missing.isEmpty() ? null : new ProcessBuilder("git", "-C", repo.toString(), "cat-file", "--batch")
+                .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        if (cat != null) {
+            Thread feeder = new Thread(() -> {
+                try (Writer w = new OutputStreamWriter(cat.getOutputStream(), StandardCharsets.UTF_8)) {
+                    for (String id : missing) w.write(id + "\n");
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }, "git-cat-file-feeder");
+            feeder.setDaemon(true);
+            feeder.start();
+        }
+        try (DataInputStream in = cat == null ? null
+                : new DataInputStream(new BufferedInputStream(cat.getInputStream(), 1 << 16))) {
+            for (String[] blob : blobs) {
+                String name = rev + ":" + blob[1];
+                SourceFacts cached = factsCache == null ? null : factsCache.get(blob[0]);
+                if (cached != null) {
+                    reuse(blob[0], cached, model);
+                    continue;
+                }
+                long start = profiler.beginFile();
+                byte[] bytes;
+                try (Profiler.Span span = profiler.begin(Phase.READ)) {
+                    bytes = readBlob(in, blob[0]);
+                }
+                parse(name, bytes, blob[0], start, parser).applyTo(model);
+            }
+        } finally {
+            if (cat != null) cat.destroy();
         }
         model.computePackageDependencies();
+        profiler.finishAnalysis();
         return model;
     }
 
-    private void parseSource(Path path, JavaParser parser, ProjectModel model) {
+    private ProjectModel newModel() {
+        ProjectModel model = new ProjectModel();
+        if (spillBufferBytes > 0) {
+            model.spillDependencies(new DependencySpill(spillDir, spillBufferBytes));
+        }
+        reused = 0;
+        return model;
+    }
+
+    private void readSource(Path path, JavaParser parser, ProjectModel model) {
+        SourceFacts facts = readFacts(path, parser);
+        if (facts != null) facts.applyTo(model);
+    }
+
+    private SourceFacts readFacts(Path path, JavaParser parser) {
+        long start = profiler.beginFile();
+        byte[] bytes;
+        try (Profiler.Span span = profiler.begin(Phase.READ)) {
+            bytes = Files.readAllBytes(path);
+        } catch (IOException e) {
+            profiler.recordReadFailure(path, e);
+            return null;
+        }
+        String key = null;
+        if (factsCache != null) {
+            key = blobId(bytes);
+            if (sources != null) sources.put(path, key);
+            SourceFacts cached = factsCache.get(key);
+            if (cached != null) {
+                usedKeys.add(key);
+                reused++;
+                return cached;
+            }
+        }
+        return parse(path.toString(), bytes, key, start, parser);
+    }
+
+    private void reuse(String key, SourceFacts facts, ProjectModel model) {
+        usedKeys.add(key);
+        facts.applyTo(model);
+        reused++;
+    }
+
+    private SourceFacts parse(String name, byte[] bytes, String key, long start, JavaParser parser) {
+        ParseResult<CompilationUnit> result;
+        try (Profiler.Span span = profiler.begin(Phase.PARSE)) {
+            result = parser.parse(new String(bytes, StandardCharsets.UTF_8));
+        }
+        if (!result.isSuccessful()) {
+            profiler.recordParseFailure(name, result.getProblems().isEmpty()
+                    ? "unknown problem" : result.getProblem(0).getVerboseMessage());
+        }
+        CompilationUnit cu = result.getResult().orElse(null);
+        SourceFacts facts = new SourceFacts();
+        if (cu != null) {
+            try (Profiler.Span span = profiler.begin(Phase.EXTRACT)) {
+                extract(cu, facts);
+            }
+        }
+        if (key != null && factsCache != null) {
+            factsCache.put(key, facts);
+            usedKeys.add(key);
+        }
+        profiler.endFile(name, bytes.length, start, result.isSuccessful());
+        return facts;
+    }
+
+    private void extract(CompilationUnit cu, SourceFacts facts) {
+        cu.findAll(ClassOrInterfaceDeclaration.class).forEach(decl -> {
+            String pkg = cu.getPackageDeclaration()
+                    .map(pd -> pd.getName().toString()).orElse("");
+            String cls = decl.getNameAsString();
+            facts.addClass(pkg, cls, decl.isInterface());
+            decl.getExtendedTypes().forEach(ext ->
+                    facts.addDependency(pkg, cls, pkgOf(ext.getNameAsString()), ext.getNameAsString(), Dependency.Type.INHERITANCE)
+            );
+            decl.getImplementedTypes().forEach(impl ->
+                    facts.addDependency(pkg, cls, pkgOf(impl.getNameAsString()), impl.getNameAsString(), Dependency.Type.INHERITANCE)
+            );
+            decl.findAll(com.github.javaparser.ast.expr.MethodCallExpr.class)
+                    .forEach(call ->
+                            call.getScope().ifPresent(scope -> {
+                                String target = scope.toString();
+                                facts.addDependency(pkg, cls, pkgOf(target), target, Dependency.Type.METHOD_CALL);
+                            })
+                    );
+        });
+    }
+
+    private static byte[] readBlob(DataInputStream in, String id) throws IOException {
+        StringBuilder header = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0) throw new EOFException("git cat-file ended before " + id);
+            header.append((char) c);
+        }
+        String[] parts = header.toString().split(" ");
+        if (parts.length != 3 || !parts[0].equals(id))
+            throw new IOException("Unexpected git cat-file output: " + header);
+        byte[] bytes = new byte[Integer.parseInt(parts[2])];
+        in.readFully(bytes);
+        in.readByte();
+        return bytes;
+    }
+
+    private static byte[] git(Path repo, String... args) throws IOException {
+        List<String> cmd = new ArrayList<>(List.of("git", "-C", repo.toString()));
+        cmd.addAll(Arrays.asList(args));
+        Process p = new ProcessBuilder(cmd).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        byte[] out = p.getInputStream().readAllBytes();
+        try {
+            if (p.waitFor() != 0) throw new IOException("Command failed: " + String.join(" ", cmd));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted: " + String.join(" ", cmd), e);
+        }
+        return out;
+    }
+
+    static String blobId(byte[] bytes) {
         try {
-            CompilationUnit cu = parser.parse(path).getResult().orElse(null);
-            if (cu == null) return;
-            cu.findAll(ClassOrInterfaceDeclaration.class).forEach(decl -> {
-                String pkg = cu.getPackageDeclaration()
-                        .map(pd -> pd.getName().toString()).orElse("");
-                model.addClass(pkg, decl.getNameAsString(), decl.isInterface());
-                decl.getExtendedTypes().forEach(ext ->
-                        model.addDependency(pkg, decl.getNameAsString(), pkgOf(ext.getNameAsString()), ext.getNameAsString(), Dependency.Type.INHERITANCE)
-                );
-                decl.getImplementedTypes().forEach(impl ->
-                        model.addDependency(pkg, decl.getNameAsString(), pkgOf(impl.getNameAsString()), impl.getNameAsString(), Dependency.Type.INHERITANCE)
-                );
-                decl.findAll(com.github.javaparser.ast.expr.MethodCallExpr.class)
-                        .forEach(call ->
-                                call.getScope().ifPresent(scope ->
-                                        model.addDependency(pkg, decl.getNameAsString(), pkgOf(scope.toString()), scope.toString(), Dependency.Type.METHOD_CALL)
-                                )
-                        );
-            });
-        } catch (IOException ignored) {}
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            sha1.update(("blob " + bytes.length + "\0").getBytes(StandardCharsets.US_ASCII));
+            StringBuilder hex = new StringBuilder(40);
+            for (byte b : sha1.digest(bytes)) hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     private String pkgOf(String className) {
@@ -0,0 +1,31 @@
+package com.example.visualizer.analyzer;
+
+import com.example.visualizer.model.Dependency;
+import com.example.visualizer.model.ProjectModel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class SourceFacts {
+    private final List<String> classNames = new ArrayList<>();
+    private final List<Boolean> interfaces = new ArrayList<>();
+    private final List<String> classPackages = new ArrayList<>();
+    private final List<Dependency> deps = new ArrayList<>();
+
+    void addClass(String pkg, String name, boolean isInterface) {
+        classPackages.add(pkg);
+        classNames.add(name);
+        interfaces.add(isInterface);
+    }
+
+    void addDependency(String fromPkg, String from, String toPkg, String to, Dependency.Type type) {
+        deps.add(new Dependency(fromPkg, from, toPkg, to, type));
+    }
+
+    void applyTo(ProjectModel model) {
+        for (int i = 0; i < classNames.size(); i++) {
+            model.addClass(classPackages.get(i), classNames.get(i), interfaces.get(i));
+        }
+        deps.forEach(model::addDependency);
+    }
+}
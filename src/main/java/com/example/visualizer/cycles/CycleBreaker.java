@@ -0,0 +1,554 @@
+package com.example.visualizer.cycles;
+
+import com.example.visualizer.model.Dependency;
+import com.example.visualizer.model.PackageGraph;
+import com.example.visualizer.model.ProjectModel;
+import com.example.visualizer.model.StrongComponents;
+import com.example.visualizer.perf.Profiler;
+import com.example.visualizer.perf.Profiler.Phase;
+import com.example.visualizer.util.JsonWriter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class CycleBreaker {
+    private static final int REFINE_PASSES = 16;
+    private static final int RESTARTS = 16;
+    private static final long MINIMIZE_LIMIT = 200_000_000L;
+    private static final long RANKING_LIMIT = 400_000_000L;
+
+    public static class Cut {
+        private final int fromId, toId;
+        private final String from, to;
+        private final int weight;
+        private int untangles, largestAfter;
+        private final List<Dependency> dependencies = new ArrayList<>();
+        private final List<Integer> counts = new ArrayList<>();
+        private final Map<String, Integer> index = new HashMap<>();
+
+        Cut(PackageGraph g, int fromId, int toId, int weight) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.from = g.name(fromId);
+            this.to = g.name(toId);
+            this.weight = weight;
+        }
+
+        private void add(Dependency d, int times) {
+            String key = d.getFrom() + '\0' + d.getTo() + '\0' + d.getType();
+            Integer i = index.putIfAbsent(key, dependencies.size());
+            if (i == null) {
+                dependencies.add(d);
+                counts.add(times);
+            } else {
+                counts.set(i, counts.get(i) + times);
+            }
+        }
+        public int getFromId() {
+            return fromId;
+        }
+        public int getToId() {
+            return toId;
+        }
+        public String getFrom() {
+            return from;
+        }
+        public String getTo() {
+            return to;
+        }
+        public int getWeight() {
+            return weight;
+        }
+        public int getUntangles() {
+            return untangles;
+        }
+        public int getLargestAfter() {
+            return largestAfter;
+        }
+        public List<Dependency> getDependencies() {
+            return dependencies;
+        }
+        public List<Integer> getCounts() {
+            return counts;
+        }
+    }
+
+    public static class Component {
+        private final List<String> packages = new ArrayList<>();
+        private final int edges;
+        private final long weight;
+        private final List<Cut> cuts = new ArrayList<>();
+
+        Component(PackageGraph g, Local local) {
+            for (int v : local.members) packages.add(g.name(v));
+            Collections.sort(packages);
+            edges = local.target.length;
+            long sum = 0;
+            for (int w : local.weight) sum += w;
+            weight = sum;
+        }
+        public List<String> getPackages() {
+            return packages;
+        }
+        public int getEdgeCount() {
+            return edges;
+        }
+        public long getWeight() {
+            return weight;
+        }
+        public long getCutWeight() {
+            return cuts.stream().mapToLong(c -> c.weight).sum();
+        }
+        public List<Cut> getCuts() {
+            return cuts;
+        }
+    }
+
+    private static final class Local {
+        final int[] members;
+        final int[] outStart, target, weight;
+        final int[] inStart, inEdge;
+
+        Local(PackageGraph g, int[] members, int[] localId) {
+            this.members = members;
+            int k = members.length;
+            outStart = new int[k + 1];
+            inStart = new int[k + 1];
+            List<int[]> edges = new ArrayList<>();
+            for (int i = 0; i < k; i++) {
+                int u = members[i];
+                for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                    int t = g.outTarget(e);
+                    if (localId[t] < 0 || members[localId[t]] != t) continue;
+                    edges.add(new int[]{i, localId[t], g.outWeight(e)});
+                    outStart[i + 1]++;
+                    inStart[localId[t] + 1]++;
+                }
+            }
+            for (int i = 0; i < k; i++) {
+                outStart[i + 1] += outStart[i];
+                inStart[i + 1] += inStart[i];
+            }
+            target = new int[edges.size()];
+            weight = new int[edges.size()];
+            inEdge = new int[edges.size()];
+            int[] inPos = Arrays.copyOf(inStart, k);
+            for (int e = 0; e < edges.size(); e++) {
+                int[] edge = edges.get(e);
+                target[e] = edge[1];
+                weight[e] = edge[2];
+                inEdge[inPos[edge[1]]++] = e;
+            }
+        }
+
+        int size() {
+            return members.length;
+        }
+
+        int source(int e) {
+            int lo = 0, hi = members.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (outStart[mid] <= e) lo = mid;
+                else hi = mid - 1;
+            }
+            return lo;
+        }
+    }
+
+    private final List<Component> components = new ArrayList<>();
+    private final boolean refined;
+
+    private CycleBreaker(ProjectModel model, boolean refine) {
+        this.refined = refine;
+        PackageGraph g = model.getPackageGraph();
+        int[] localId = new int[g.size()];
+        Arrays.fill(localId, -1);
+        List<Local> locals = new ArrayList<>();
+        for (int[] members : model.getCycleMembers()) {
+            for (int i = 0; i < members.length; i++) localId[members[i]] = i;
+            locals.add(new Local(g, members, localId));
+        }
+        components.addAll(locals.parallelStream()
+                .map(local -> breakComponent(g, local, refine))
+                .collect(Collectors.toList()));
+        components.sort(Comparator.comparingInt((Component c) -> c.packages.size()).reversed()
+                .thenComparing(c -> c.packages.get(0)));
+
+        Map<Long, Cut> byEdge = new HashMap<>();
+        for (Component c : components) {
+            for (Cut cut : c.cuts) byEdge.put((long) cut.fromId * g.size() + cut.toId, cut);
+        }
+        if (!byEdge.isEmpty()) {
+            model.forEachDependency((d, times) -> {
+                int from = g.id(d.getFromPkg()), to = g.id(d.getToPkg());
+                if (from < 0 || to < 0) return;
+                Cut cut = byEdge.get((long) from * g.size() + to);
+                if (cut != null) cut.add(d, times);
+            });
+        }
+    }
+
+    public static CycleBreaker compute(ProjectModel model, boolean refine) {
+        try (Profiler.Span span = Profiler.get().begin(Phase.CUTS)) {
+            return new CycleBreaker(model, refine);
+        }
+    }
+
+    private static Component breakComponent(PackageGraph g, Local local, boolean refine) {
+        int[] order = eadesLinSmyth(local);
+        if (refine) {
+            int[] start = order;
+            order = IntStream.range(0, RESTARTS)
+                    .parallel()
+                    .mapToObj(i -> {
+                        Random rnd = new Random(i);
+                        int[] o = i == 0 ? start.clone() : depthFirstOrder(local, rnd);
+                        sift(local, o, i == 0 ? null : rnd);
+                        return o;
+                    })
+                    .min(Comparator.comparingLong((int[] o) -> cost(local, o)))
+                    .orElse(start);
+        }
+        int[] pos = new int[local.size()];
+        for (int i = 0; i < order.length; i++) pos[order[i]] = i;
+        List<Integer> feedback = new ArrayList<>();
+        for (int u = 0; u < local.size(); u++) {
+            for (int e = local.outStart[u]; e < local.outStart[u + 1]; e++) {
+                if (pos[local.target[e]] < pos[u]) feedback.add(e);
+            }
+        }
+        BitSet removed = new BitSet(local.target.length);
+        feedback.forEach(removed::set);
+        if ((long) feedback.size() * (local.size() + local.target.length) <= MINIMIZE_LIMIT) {
+            feedback.sort(Comparator.comparingInt((Integer e) -> local.weight[e]).reversed());
+            for (Iterator<Integer> it = feedback.iterator(); it.hasNext(); ) {
+                int e = it.next();
+                if (!reaches(local, removed, local.target[e], local.source(e))) {
+                    removed.clear(e);
+                    it.remove();
+                }
+            }
+        }
+
+        Component component = new Component(g, local);
+        int[] cuts = feedback.stream().mapToInt(Integer::intValue).toArray();
+        int[] untangles = new int[cuts.length];
+        boolean ranked = (long) cuts.length * (local.size() + local.target.length) <= RANKING_LIMIT;
+        if (ranked) {
+            IntStream.range(0, cuts.length).parallel().forEach(i -> {
+                BitSet without = (BitSet) removed.clone();
+                without.clear(cuts[i]);
+                int[] comp = components(local, without);
+                int c = comp[local.target[cuts[i]]], size = 0;
+                for (int x : comp) if (x == c) size++;
+                untangles[i] = size;
+            });
+        }
+        Integer[] byRank = new Integer[cuts.length];
+        for (int i = 0; i < cuts.length; i++) byRank[i] = i;
+        Arrays.sort(byRank, (a, b) -> untangles[a] != untangles[b]
+                ? Integer.compare(untangles[b], untangles[a])
+                : Integer.compare(local.weight[cuts[a]], local.weight[cuts[b]]));
+        int[] largestAfter = new int[cuts.length];
+        if (ranked) {
+            IntStream.range(0, cuts.length).parallel().forEach(i -> {
+                BitSet prefix = new BitSet(local.target.length);
+                for (int j = 0; j <= i; j++) prefix.set(cuts[byRank[j]]);
+                int[] comp = components(local, prefix);
+                int[] sizes = new int[local.size()];
+                int max = 0;
+                for (int c : comp) max = Math.max(max, ++sizes[c]);
+                largestAfter[i] = max;
+            });
+        }
+        for (int i = 0; i < cuts.length; i++) {
+            int e = cuts[byRank[i]];
+            Cut cut = new Cut(g, local.members[local.source(e)], local.members[local.target[e]], local.weight[e]);
+            cut.untangles = ranked ? untangles[byRank[i]] : -1;
+            cut.largestAfter = ranked ? largestAfter[i] : -1;
+            component.cuts.add(cut);
+        }
+        return component;
+    }
+
+    private static int[] eadesLinSmyth(Local g) {
+        int k = g.size();
+        long[] out = new long[k], in = new long[k];
+        for (int u = 0; u < k; u++) {
+            for (int e = g.outStart[u]; e < g.outStart[u + 1]; e++) {
+                out[u] += g.weight[e];
+                in[g.target[e]] += g.weight[e];
+            }
+        }
+        boolean[] removed = new boolean[k];
+        int[] stamp = new int[k];
+        ArrayDeque<Integer> sinks = new ArrayDeque<>(), sources = new ArrayDeque<>();
+        PriorityQueue<long[]> byDelta = new PriorityQueue<>((a, b) -> a[0] != b[0]
+                ? Long.compare(b[0], a[0]) : Long.compare(a[1], b[1]));
+        for (int v = 0; v < k; v++) {
+            if (out[v] == 0) sinks.add(v);
+            else if (in[v] == 0) sources.add(v);
+            else byDelta.add(new long[]{out[v] - in[v], v, 0});
+        }
+        int[] order = new int[k];
+        int head = 0, tail = k;
+        for (int remaining = k; remaining > 0; remaining--) {
+            int v;
+            if (!sinks.isEmpty()) {
+                v = sinks.poll();
+                order[--tail] = v;
+            } else if (!sources.isEmpty()) {
+                v = sources.poll();
+                order[head++] = v;
+            } else {
+                long[] top;
+                do {
+                    top = byDelta.poll();
+                } while (removed[(int) top[1]] || stamp[(int) top[1]] != top[2]);
+                v = (int) top[1];
+                order[head++] = v;
+            }
+            removed[v] = true;
+            for (int e = g.outStart[v]; e < g.outStart[v + 1]; e++) {
+                int w = g.target[e];
+                if (removed[w]) continue;
+                in[w] -= g.weight[e];
+                if (in[w] == 0 && out[w] > 0) {
+                    stamp[w]++;
+                    sources.add(w);
+                } else if (out[w] > 0) {
+                    byDelta.add(new long[]{out[w] - in[w], w, ++stamp[w]});
+                }
+            }
+            for (int i = g.inStart[v]; i < g.inStart[v + 1]; i++) {
+                int e = g.inEdge[i], u = g.source(e);
+                if (removed[u]) continue;
+                out[u] -= g.weight[e];
+                if (out[u] == 0) {
+                    stamp[u]++;
+                    sinks.add(u);
+                } else if (in[u] > 0) {
+                    byDelta.add(new long[]{out[u] - in[u], u, ++stamp[u]});
+                }
+            }
+            while (!sinks.isEmpty() && removed[sinks.peek()]) sinks.poll();
+            while (!sources.isEmpty() && removed[sources.peek()]) sources.poll();
+        }
+        return order;
+    }
+
+    private static int[] depthFirstOrder(Local g, Random rnd) {
+        int k = g.size();
+        int[] roots = new int[k];
+        for (int i = 0; i < k; i++) roots[i] = i;
+        for (int i = k - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1), t = roots[i];
+            roots[i] = roots[j];
+            roots[j] = t;
+        }
+        int[] offset = new int[k], step = new int[k], calls = new int[k];
+        boolean[] seen = new boolean[k];
+        int[] order = new int[k];
+        int done = k;
+        for (int s : roots) {
+            if (seen[s]) continue;
+            int cs = 0;
+            calls[cs++] = s;
+            seen[s] = true;
+            while (cs > 0) {
+                int v = calls[cs - 1], degree = g.outStart[v + 1] - g.outStart[v];
+                if (step[v] == 0 && degree > 0) offset[v] = rnd.nextInt(degree);
+                if (step[v] < degree) {
+                    int w = g.target[g.outStart[v] + (offset[v] + step[v]++) % degree];
+                    if (!seen[w]) {
+                        seen[w] = true;
+                        calls[cs++] = w;
+                    }
+                } else {
+                    cs--;
+                    order[--done] = v;
+                }
+            }
+        }
+        return order;
+    }
+
+    private static void sift(Local g, int[] order, Random shuffle) {
+        int k = g.size();
+        int[] pos = new int[k];
+        for (int i = 0; i < k; i++) pos[order[i]] = i;
+        int[] visit = order.clone();
+        for (int pass = 0; pass < REFINE_PASSES; pass++) {
+            if (shuffle != null) {
+                for (int i = k - 1; i > 0; i--) {
+                    int j = shuffle.nextInt(i + 1), t = visit[i];
+                    visit[i] = visit[j];
+                    visit[j] = t;
+                }
+            }
+            boolean improved = false;
+            for (int v : visit) {
+                int p = pos[v];
+                int degree = g.outStart[v + 1] - g.outStart[v] + g.inStart[v + 1] - g.inStart[v];
+                long[] left = new long[degree], right = new long[degree];
+                long[] delta = new long[degree];
+                int nl = 0, nr = 0, n = 0;
+                for (int e = g.outStart[v]; e < g.outStart[v + 1]; e++, n++) {
+                    int q = pos[g.target[e]];
+                    if (q < p) {
+                        delta[n] = -g.weight[e];
+                        left[nl++] = (long) (p - q) << 32 | n;
+                    } else {
+                        delta[n] = g.weight[e];
+                        right[nr++] = (long) (q - p) << 32 | n;
+                    }
+                }
+                for (int i = g.inStart[v]; i < g.inStart[v + 1]; i++, n++) {
+                    int e = g.inEdge[i], q = pos[g.source(e)];
+                    if (q < p) {
+                        delta[n] = g.weight[e];
+                        left[nl++] = (long) (p - q) << 32 | n;
+                    } else {
+                        delta[n] = -g.weight[e];
+                        right[nr++] = (long) (q - p) << 32 | n;
+                    }
+                }
+                long bestGain = 0;
+                int bestPos = p;
+                Arrays.sort(left, 0, nl);
+                long sum = 0;
+                for (int i = 0; i < nl; i++) {
+                    sum += delta[(int) left[i]];
+                    int distance = (int) (left[i] >>> 32);
+                    if ((i + 1 == nl || (int) (left[i + 1] >>> 32) != distance) && sum < bestGain) {
+                        bestGain = sum;
+                        bestPos = p - distance;
+                    }
+                }
+                Arrays.sort(right, 0, nr);
+                sum = 0;
+                for (int i = 0; i < nr; i++) {
+                    sum += delta[(int) right[i]];
+                    int distance = (int) (right[i] >>> 32);
+                    if ((i + 1 == nr || (int) (right[i + 1] >>> 32) != distance) && sum < bestGain) {
+                        bestGain = sum;
+                        bestPos = p + distance;
+                    }
+                }
+                if (bestPos == p) continue;
+                if (bestPos < p) {
+                    System.arraycopy(order, bestPos, order, bestPos + 1, p - bestPos);
+                } else {
+                    System.arraycopy(order, p + 1, order, p, bestPos - p);
+                }
+                order[bestPos] = v;
+                for (int i = Math.min(p, bestPos); i <= Math.max(p, bestPos); i++) pos[order[i]] = i;
+                improved = true;
+            }
+            if (!improved) break;
+        }
+    }
+
+    private static long cost(Local g, int[] order) {
+        int[] pos = new int[g.size()];
+        for (int i = 0; i < order.length; i++) pos[order[i]] = i;
+        long sum = 0;
+        for (int u = 0; u < g.size(); u++) {
+            for (int e = g.outStart[u]; e < g.outStart[u + 1]; e++) {
+                if (pos[g.target[e]] < pos[u]) sum += g.weight[e];
+            }
+        }
+        return sum;
+    }
+
+    private static boolean reaches(Local g, BitSet removed, int from, int to) {
+        BitSet seen = new BitSet(g.size());
+        ArrayDeque<Integer> stack = new ArrayDeque<>();
+        stack.push(from);
+        seen.set(from);
+        while (!stack.isEmpty()) {
+            int u = stack.pop();
+            if (u == to) return true;
+            for (int e = g.outStart[u]; e < g.outStart[u + 1]; e++) {
+                int w = g.target[e];
+                if (removed.get(e) || seen.get(w)) continue;
+                seen.set(w);
+                stack.push(w);
+            }
+        }
+        return false;
+    }
+
+    private static int[] components(Local g, BitSet removed) {
+        int[] comp = new int[g.size()];
+        StrongComponents.label(g.outStart, g.target, removed, comp);
+        return comp;
+    }
+
+    public List<Component> getComponents() {
+        return components;
+    }
+
+    public boolean isRefined() {
+        return refined;
+    }
+
+    public List<String> summary() {
+        List<String> lines = new ArrayList<>();
+        for (Component c : components) {
+            lines.add(c.packages.size() + " packages, " + c.edges + " edges: cut " + c.cuts.size()
+                    + " edges of weight " + c.getCutWeight() + " / " + c.weight);
+            for (Cut cut : c.cuts) {
+                lines.add("  " + cut.from + " -> " + cut.to + " (" + cut.weight + ")"
+                        + (cut.untangles < 0 ? "" : " untangles " + cut.untangles
+                        + ", largest cycle after " + cut.largestAfter));
+            }
+        }
+        return lines;
+    }
+
+    public void writeJson(JsonWriter w) throws IOException {
+        w.beginObject();
+        w.name("refined").value(refined);
+        w.name("components").beginArray();
+        for (Component c : components) {
+            w.beginObject();
+            w.name("packages").beginArray();
+            for (String pkg : c.packages) w.value(pkg);
+            w.endArray();
+            w.name("edges").value(c.edges);
+            w.name("weight").value(c.weight);
+            w.name("cutWeight").value(c.getCutWeight());
+            w.name("cuts").beginArray();
+            for (Cut cut : c.cuts) {
+                w.beginObject()
+                        .name("from").value(cut.from)
+                        .name("to").value(cut.to)
+                        .name("weight").value(cut.weight);
+                if (cut.untangles >= 0) {
+                    w.name("untangles").value(cut.untangles);
+                    w.name("largestAfter").value(cut.largestAfter);
+                }
+                w.name("dependencies").beginArray();
+                for (int i = 0; i < cut.dependencies.size(); i++) {
+                    Dependency d = cut.dependencies.get(i);
+                    w.beginObject()
+                            .name("from").value(d.getFromPkg() + "." + d.getFrom())
+                            .name("to").value(d.getTo())
+                            .name("type").value(d.getType().name())
+                            .name("count").value(cut.counts.get(i))
+                            .endObject();
+                }
+                w.endArray();
+                w.endObject();
+            }
+            w.endArray();
+            w.endObject();
+        }
+        w.endArray();
+        w.endObject();
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.visualizer.diff;
+
+import com.example.visualizer.model.PackageGraph;
+import com.example.visualizer.model.PackageMetrics;
+import com.example.visualizer.model.ProjectModel;
+import com.example.visualizer.util.JsonWriter;
+
+import java.io.IOException;
+import java.util.*;
+
+public class ArchitectureDiff {
+    public static class EdgeChange {
+        private final String from, to;
+        private final int before, after;
+
+        EdgeChange(String from, String to, int before, int after) {
+            this.from = from;
+            this.to = to;
+            this.before = before;
+            this.after = after;
+        }
+        public String getFrom() {
+            return from;
+        }
+        public String getTo() {
+            return to;
+        }
+        public int getBefore() {
+            return before;
+        }
+        public int getAfter() {
+            return after;
+        }
+    }
+
+    public static class CycleChange {
+        public enum Kind {
+            NEW, REMOVED, GROWN, SHRUNK, CHANGED
+        }
+        private final Kind kind;
+        private final Set<String> before, after;
+
+        CycleChange(Kind kind, Set<String> before, Set<String> after) {
+            this.kind = kind;
+            this.before = before;
+            this.after = after;
+        }
+        public Kind getKind() {
+            return kind;
+        }
+        public Set<String> getBefore() {
+            return before;
+        }
+        public Set<String> getAfter() {
+            return after;
+        }
+    }
+
+    public static class MetricChange {
+        private final String pkg;
+        private final int fanInBefore, fanInAfter, fanOutBefore, fanOutAfter;
+        private final double instabilityBefore, instabilityAfter;
+        private final double abstractnessBefore, abstractnessAfter, distanceBefore, distanceAfter;
+
+        MetricChange(String pkg, PackageGraph before, int b, PackageGraph after, int a) {
+            this.pkg = pkg;
+            this.fanInBefore = before.inDegree(b);
+            this.fanInAfter = after.inDegree(a);
+            this.fanOutBefore = before.outDegree(b);
+            this.fanOutAfter = after.outDegree(a);
+            this.instabilityBefore = PackageMetrics.instability(before, b);
+            this.instabilityAfter = PackageMetrics.instability(after, a);
+            this.abstractnessBefore = PackageMetrics.abstractness(before, b);
+            this.abstractnessAfter = PackageMetrics.abstractness(after, a);
+            this.distanceBefore = PackageMetrics.distance(before, b);
+            this.distanceAfter = PackageMetrics.distance(after, a);
+        }
+        boolean isChanged() {
+            return fanInBefore != fanInAfter || fanOutBefore != fanOutAfter
+                    || abstractnessBefore != abstractnessAfter;
+        }
+        public String getPackage() {
+            return pkg;
+        }
+        public int getFanInBefore() {
+            return fanInBefore;
+        }
+        public int getFanInAfter() {
+            return fanInAfter;
+        }
+        public int getFanOutBefore() {
+            return fanOutBefore;
+        }
+        public int getFanOutAfter() {
+            return fanOutAfter;
+        }
+        public double getAbstractnessBefore() {
+            return abstractnessBefore;
+        }
+        public double getAbstractnessAfter() {
+            return abstractnessAfter;
+        }
+        public double getDistanceBefore() {
+            return distanceBefore;
+        }
+        public double getDistanceAfter() {
+            return distanceAfter;
+        }
+    }
+
+    private final List<String> addedPackages = new ArrayList<>();
+    private final List<String> removedPackages = new ArrayList<>();
+    private final List<EdgeChange> addedEdges = new ArrayList<>();
+    private final List<EdgeChange> removedEdges = new ArrayList<>();
+    private final List<EdgeChange> changedEdges = new ArrayList<>();
+    private final List<CycleChange> cycleChanges = new ArrayList<>();
+    private final List<MetricChange> metricChanges = new ArrayList<>();
+    private final int maxDepthBefore, maxDepthAfter;
+    private final long dependenciesBefore, dependenciesAfter;
+
+    private ArchitectureDiff(ProjectModel before, ProjectModel after) {
+        PackageGraph b = before.getPackageGraph(), a = after.getPackageGraph();
+        for (int v = 0; v < a.size(); v++) {
+            if (b.id(a.name(v)) < 0) addedPackages.add(a.name(v));
+        }
+        for (int v = 0; v < b.size(); v++) {
+            if (a.id(b.name(v)) < 0) removedPackages.add(b.name(v));
+        }
+
+        Map<String, Integer> oldEdges = new HashMap<>();
+        for (int u = 0; u < b.size(); u++) {
+            for (int e = b.outStart(u); e < b.outEnd(u); e++) {
+                oldEdges.put(b.name(u) + '\0' + b.name(b.outTarget(e)), b.outWeight(e));
+            }
+        }
+        for (int u = 0; u < a.size(); u++) {
+            for (int e = a.outStart(u); e < a.outEnd(u); e++) {
+                String from = a.name(u), to = a.name(a.outTarget(e));
+                Integer old = oldEdges.remove(from + '\0' + to);
+                if (old == null) addedEdges.add(new EdgeChange(from, to, 0, a.outWeight(e)));
+                else if (old != a.outWeight(e)) changedEdges.add(new EdgeChange(from, to, old, a.outWeight(e)));
+            }
+        }
+        oldEdges.forEach((key, weight) -> {
+            int sep = key.indexOf('\0');
+            removedEdges.add(new EdgeChange(key.substring(0, sep), key.substring(sep + 1), weight, 0));
+        });
+        removedEdges.sort(Comparator.comparing(EdgeChange::getFrom).thenComparing(EdgeChange::getTo));
+
+        diffCycles(before.getCycles(), after.getCycles());
+
+        for (int v = 0; v < a.size(); v++) {
+            int old = b.id(a.name(v));
+            if (old < 0) continue;
+            MetricChange change = new MetricChange(a.name(v), b, old, a, v);
+            if (change.isChanged()) metricChanges.add(change);
+        }
+        maxDepthBefore = before.getMaxDependencyDepth();
+        maxDepthAfter = after.getMaxDependencyDepth();
+        dependenciesBefore = before.getDependencyCount();
+        dependenciesAfter = after.getDependencyCount();
+    }
+
+    public static ArchitectureDiff compute(ProjectModel before, ProjectModel after) {
+        return new ArchitectureDiff(before, after);
+    }
+
+    private void diffCycles(Set<Set<String>> before, Set<Set<String>> after) {
+        Map<String, Set<String>> oldByPackage = new HashMap<>();
+        for (Set<String> scc : before) {
+            for (String pkg : scc) oldByPackage.put(pkg, scc);
+        }
+        Set<Set<String>> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Set<String> scc : after) {
+            Set<Set<String>> overlapping = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (String pkg : scc) {
+                Set<String> old = oldByPackage.get(pkg);
+                if (old != null) overlapping.add(old);
+            }
+            matched.addAll(overlapping);
+            Set<String> union = new TreeSet<>();
+            overlapping.forEach(union::addAll);
+            if (overlapping.isEmpty()) {
+                cycleChanges.add(new CycleChange(CycleChange.Kind.NEW, Collections.emptySet(), new TreeSet<>(scc)));
+            } else if (!union.equals(scc)) {
+                CycleChange.Kind kind = scc.containsAll(union) ? CycleChange.Kind.GROWN
+                        : union.containsAll(scc) ? CycleChange.Kind.SHRUNK
+                        : CycleChange.Kind.CHANGED;
+                cycleChanges.add(new CycleChange(kind, union, new TreeSet<>(scc)));
+            }
+        }
+        for (Set<String> scc : before) {
+            if (!matched.contains(scc)) {
+                cycleChanges.add(new CycleChange(CycleChange.Kind.REMOVED, new TreeSet<>(scc), Collections.emptySet()));
+            }
+        }
+    }
+
+    public List<String> getAddedPackages() {
+        return addedPackages;
+    }
+
+    public List<EdgeChange> getAddedEdges() {
+        return addedEdges;
+    }
+
+    public List<EdgeChange> getRemovedEdges() {
+        return removedEdges;
+    }
+
+    public List<EdgeChange> getChangedEdges() {
+        return changedEdges;
+    }
+
+    public List<CycleChange> getCycleChanges() {
+        return cycleChanges;
+    }
+
+    public List<MetricChange> getMetricChanges() {
+        return metricChanges;
+    }
+
+    public List<String> summary() {
+        List<String> lines = new ArrayList<>();
+        lines.add("Packages: +" + addedPackages.size() + " / -" + removedPackages.size());
+        lines.add("Dependencies: " + dependenciesBefore + " -> " + dependenciesAfter);
+        lines.add("Package edges: +" + addedEdges.size() + " / -" + removedEdges.size()
+                + " / ~" + changedEdges.size());
+        lines.add("Max depth: " + maxDepthBefore + " -> " + maxDepthAfter);
+        for (EdgeChange e : addedEdges) {
+            lines.add("+ " + e.from + " -> " + e.to + " (" + e.after + ")");
+        }
+        for (EdgeChange e : removedEdges) {
+            lines.add("- " + e.from + " -> " + e.to + " (" + e.before + ")");
+        }
+        for (CycleChange c : cycleChanges) {
+            lines.add("cycle " + c.kind.name().toLowerCase() + ": "
+                    + (c.after.isEmpty() ? c.before : c.after));
+        }
+        return lines;
+    }
+
+    public void writeJson(JsonWriter w) throws IOException {
+        w.beginObject();
+        w.name("maxDepth").beginObject()
+                .name("before").value(maxDepthBefore)
+                .name("after").value(maxDepthAfter)
+                .endObject();
+        w.name("dependencies").beginObject()
+                .name("before").value(dependenciesBefore)
+                .name("after").value(dependenciesAfter)
+                .endObject();
+        writeNames(w, "addedPackages", addedPackages);
+        writeNames(w, "removedPackages", removedPackages);
+        writeEdges(w, "addedEdges", addedEdges);
+        writeEdges(w, "removedEdges", removedEdges);
+        writeEdges(w, "changedEdges", changedEdges);
+        w.name("cycles").beginArray();
+        for (CycleChange c : cycleChanges) {
+            w.beginObject().name("kind").value(c.kind.name().toLowerCase());
+            writeNames(w, "before", c.before);
+            writeNames(w, "after", c.after);
+            w.endObject();
+        }
+        w.endArray();
+        w.name("metrics").beginArray();
+        for (MetricChange m : metricChanges) {
+            w.beginObject()
+                    .name("package").value(m.pkg)
+                    .name("fanIn").beginArray().value(m.fanInBefore).value(m.fanInAfter).endArray()
+                    .name("fanOut").beginArray().value(m.fanOutBefore).value(m.fanOutAfter).endArray()
+                    .name("instability").beginArray().value(m.instabilityBefore).value(m.instabilityAfter).endArray()
+                    .name("abstractness").beginArray().value(m.abstractnessBefore).value(m.abstractnessAfter).endArray()
+                    .name("distance").beginArray().value(m.distanceBefore).value(m.distanceAfter).endArray()
+                    .endObject();
+        }
+        w.endArray();
+        w.endObject();
+    }
+
+    private static void writeNames(JsonWriter w, String name, Collection<String> names) throws IOException {
+        w.name(name).beginArray();
+        for (String n : names) w.value(n);
+        w.endArray();
+    }
+
+    private static void writeEdges(JsonWriter w, String name, List<EdgeChange> edges) throws IOException {
+        w.name(name).beginArray();
+        for (EdgeChange e : edges) {
+            w.beginObject()
+                    .name("from").value(e.from)
+                    .name("to").value(e.to)
+                    .name("before").value(e.before)
+                    .name("after").value(e.after)
+                    .endObject();
+        }
+        w.endArray();
+    }
+}
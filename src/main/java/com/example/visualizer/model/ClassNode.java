@@ -6,8 +6,8 @@ public class ClassNode {
     private final String name;
     private final boolean isInterface;
     private final String packageName;
-    private final List<String> methods = new ArrayList<>();
-    private final List<String> fields  = new ArrayList<>();
+    private List<String> methods = Collections.emptyList();
+    private List<String> fields  = Collections.emptyList();
 
     public ClassNode(String name, boolean isInterface, String packageName) {
         this.name = name;
@@ -15,9 +15,11 @@ public class ClassNode {
         this.packageName = packageName;
     }
     public void addMethod(String signature) {
+        if (methods.isEmpty()) methods = new ArrayList<>(4);
         methods.add(signature);
     }
     public void addField(String fieldName) {
+        if (fields.isEmpty()) fields = new ArrayList<>(4);
         fields.add(fieldName);
     }
     public List<String> getMethods() {
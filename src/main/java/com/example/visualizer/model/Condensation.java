@@ -0,0 +1,102 @@
+package com.example.visualizer.model;
+
+import java.util.Arrays;
+
+public class Condensation {
+    private final PackageGraph graph;
+    private final int[] component;
+    private final int[] depth, nextFrom, nextEdge;
+    private final int[] cycle, cycleStart, cycleMembers;
+    private final int max;
+
+    private Condensation(PackageGraph graph) {
+        this.graph = graph;
+        int n = graph.size();
+        component = new int[n];
+        int c = StrongComponents.label(graph.outStart, graph.outTargets, null, component);
+
+        int[] start = new int[c + 1];
+        for (int v = 0; v < n; v++) start[component[v] + 1]++;
+        for (int i = 0; i < c; i++) start[i + 1] += start[i];
+        int[] members = new int[n], pos = Arrays.copyOf(start, c);
+        for (int v = 0; v < n; v++) members[pos[component[v]]++] = v;
+
+        depth = new int[c];
+        nextFrom = new int[c];
+        nextEdge = new int[c];
+        Arrays.fill(nextEdge, -1);
+        int best = 0;
+        for (int k = 0; k < c; k++) {
+            for (int m = start[k]; m < start[k + 1]; m++) {
+                int u = members[m];
+                for (int e = graph.outStart(u); e < graph.outEnd(u); e++) {
+                    int d = component[graph.outTarget(e)];
+                    if (d != k && depth[d] + 1 > depth[k]) {
+                        depth[k] = depth[d] + 1;
+                        nextFrom[k] = u;
+                        nextEdge[k] = e;
+                    }
+                }
+            }
+            best = Math.max(best, depth[k]);
+        }
+        max = best;
+
+        int[] cycleOf = new int[c];
+        int cycles = 0, cyclic = 0;
+        for (int k = 0; k < c; k++) {
+            int size = start[k + 1] - start[k];
+            cycleOf[k] = size > 1 ? cycles++ : -1;
+            if (size > 1) cyclic += size;
+        }
+        cycle = new int[n];
+        cycleStart = new int[cycles + 1];
+        cycleMembers = new int[cyclic];
+        for (int k = 0, at = 0; k < c; k++) {
+            if (cycleOf[k] < 0) continue;
+            for (int m = start[k]; m < start[k + 1]; m++) cycleMembers[at++] = members[m];
+            cycleStart[cycleOf[k] + 1] = at;
+        }
+        for (int v = 0; v < n; v++) cycle[v] = cycleOf[component[v]];
+    }
+
+    public static Condensation compute(PackageGraph graph) {
+        return new Condensation(graph);
+    }
+
+    public int getMaxDepth() {
+        return max;
+    }
+
+    public int getDepth(int id) {
+        return depth[component[id]];
+    }
+
+    public int getComponent(int id) {
+        return component[id];
+    }
+
+    public int getCycle(int id) {
+        return id >= 0 && id < cycle.length ? cycle[id] : -1;
+    }
+
+    public int getCycleCount() {
+        return cycleStart.length - 1;
+    }
+
+    public int[] getCycleMembers(int cycle) {
+        return Arrays.copyOfRange(cycleMembers, cycleStart[cycle], cycleStart[cycle + 1]);
+    }
+
+    public int getChainFrom(int id) {
+        return nextEdge[component[id]] < 0 ? -1 : nextFrom[component[id]];
+    }
+
+    public int getChainEdge(int id) {
+        return nextEdge[component[id]];
+    }
+
+    public PackageGraph getGraph() {
+        return graph;
+    }
+}
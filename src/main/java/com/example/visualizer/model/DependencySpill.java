@@ -0,0 +1,229 @@
+package com.example.visualizer.model;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.ObjIntConsumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class DependencySpill implements Closeable {
+    private static final int MAX_FAN_IN = 64;
+    private static final int RECORD_OVERHEAD = 200;
+    private static final Comparator<Dependency> ORDER = Comparator
+            .comparing(Dependency::getFromPkg)
+            .thenComparing(Dependency::getToPkg)
+            .thenComparing(Dependency::getFrom)
+            .thenComparing(Dependency::getTo)
+            .thenComparing(Dependency::getType);
+
+    private final Path dir;
+    private final long bufferBytes;
+    private final List<Dependency> buffer = new ArrayList<>();
+    private final List<Path> runs = new ArrayList<>();
+    private long buffered;
+    private long count;
+    private final Thread cleanup = new Thread(this::deleteRuns, "spill-cleanup");
+
+    public DependencySpill(Path dir, long bufferBytes) {
+        this.dir = dir;
+        this.bufferBytes = bufferBytes;
+        Runtime.getRuntime().addShutdownHook(cleanup);
+    }
+
+    public synchronized void add(Dependency dep) {
+        buffer.add(dep);
+        buffered += RECORD_OVERHEAD + dep.getFromPkg().length() + dep.getFrom().length()
+                + dep.getToPkg().length() + dep.getTo().length();
+        count++;
+        if (buffered >= bufferBytes) flush();
+    }
+
+    public synchronized long size() {
+        return count;
+    }
+
+    public synchronized int getRunCount() {
+        return runs.size();
+    }
+
+    public synchronized void forEach(ObjIntConsumer<Dependency> action) {
+        flush();
+        try {
+            merge(runs, action);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        deleteRuns();
+        buffer.clear();
+        buffered = 0;
+        count = 0;
+        try {
+            Runtime.getRuntime().removeShutdownHook(cleanup);
+        } catch (IllegalStateException e) {
+            // already shutting down; the hook deletes the runs
+        }
+    }
+
+    private synchronized void deleteRuns() {
+        for (Path run : runs) {
+            try {
+                Files.deleteIfExists(run);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        runs.clear();
+    }
+
+    private void flush() {
+        if (buffer.isEmpty()) return;
+        buffer.sort(ORDER);
+        try {
+            Path run = newRun();
+            try (DataOutputStream out = openWrite(run)) {
+                Dependency pending = null;
+                int times = 0;
+                for (Dependency d : buffer) {
+                    if (pending != null && ORDER.compare(pending, d) == 0) {
+                        times++;
+                        continue;
+                    }
+                    if (pending != null) write(out, pending, times);
+                    pending = d;
+                    times = 1;
+                }
+                write(out, pending, times);
+                out.writeBoolean(false);
+            }
+            runs.add(run);
+            buffer.clear();
+            buffered = 0;
+            if (runs.size() >= MAX_FAN_IN) compact();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void compact() throws IOException {
+        Path merged = newRun();
+        try (DataOutputStream out = openWrite(merged)) {
+            IOException[] failure = new IOException[1];
+            merge(runs, (d, times) -> {
+                if (failure[0] != null) return;
+                try {
+                    write(out, d, times);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) throw failure[0];
+            out.writeBoolean(false);
+        }
+        for (Path run : runs) Files.deleteIfExists(run);
+        runs.clear();
+        runs.add(merged);
+    }
+
+    private static void merge(List<Path> runs, ObjIntConsumer<Dependency> action) throws IOException {
+        PriorityQueue<RunReader> heads = new PriorityQueue<>(
+                (a, b) -> ORDER.compare(a.current, b.current));
+        List<RunReader> readers = new ArrayList<>();
+        try {
+            for (Path run : runs) {
+                RunReader r = new RunReader(openRead(run));
+                readers.add(r);
+                if (r.advance()) heads.add(r);
+            }
+            while (!heads.isEmpty()) {
+                RunReader r = heads.poll();
+                Dependency d = r.current;
+                int times = r.times;
+                if (r.advance()) heads.add(r);
+                while (!heads.isEmpty() && ORDER.compare(heads.peek().current, d) == 0) {
+                    RunReader same = heads.poll();
+                    times += same.times;
+                    if (same.advance()) heads.add(same);
+                }
+                action.accept(d, times);
+            }
+        } finally {
+            for (RunReader r : readers) r.in.close();
+        }
+    }
+
+    private Path newRun() throws IOException {
+        Files.createDirectories(dir);
+        return Files.createTempFile(dir, "deps-", ".run");
+    }
+
+    private static DataOutputStream openWrite(Path run) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(run), 1 << 16)));
+    }
+
+    private static DataInputStream openRead(Path run) throws IOException {
+        return new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(run), 1 << 16)));
+    }
+
+    private static void write(DataOutputStream out, Dependency d, int times) throws IOException {
+        out.writeBoolean(true);
+        writeString(out, d.getFromPkg());
+        writeString(out, d.getFrom());
+        writeString(out, d.getToPkg());
+        writeString(out, d.getTo());
+        out.writeByte(d.getType().ordinal());
+        out.writeInt(times);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static class RunReader {
+        private static final Dependency.Type[] TYPES = Dependency.Type.values();
+        final DataInputStream in;
+        Dependency current;
+        int times;
+        private String lastFromPkg = "", lastToPkg = "";
+
+        RunReader(DataInputStream in) {
+            this.in = in;
+        }
+
+        boolean advance() throws IOException {
+            if (!in.readBoolean()) {
+                current = null;
+                return false;
+            }
+            String fromPkg = share(readString(in), lastFromPkg);
+            String from = readString(in);
+            String toPkg = share(readString(in), lastToPkg);
+            String to = readString(in);
+            current = new Dependency(fromPkg, from, toPkg, to, TYPES[in.readByte()]);
+            times = in.readInt();
+            lastFromPkg = fromPkg;
+            lastToPkg = toPkg;
+            return true;
+        }
+
+        private static String share(String s, String last) {
+            return s.equals(last) ? last : s;
+        }
+    }
+}
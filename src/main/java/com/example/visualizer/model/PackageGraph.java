@@ -0,0 +1,131 @@
+package com.example.visualizer.model;
+
+import java.util.*;
+
+public class PackageGraph {
+    private final String[] names;
+    private final Map<String, Integer> ids;
+    private final int[] classCount, interfaceCount;
+    final int[] outStart, outTargets, outWeights;
+    private final int[] inStart, inSources, inWeights;
+
+    PackageGraph(Collection<PackageNode> packages, Map<String, Map<String, Integer>> weights) {
+        int n = packages.size();
+        names = new String[n];
+        ids = new HashMap<>(n * 2);
+        classCount = new int[n];
+        interfaceCount = new int[n];
+        int i = 0;
+        for (PackageNode pkg : packages) {
+            names[i] = pkg.getName();
+            ids.put(pkg.getName(), i);
+            classCount[i] = pkg.getClasses().size();
+            for (ClassNode cls : pkg.getClasses()) {
+                if (cls.isInterface()) interfaceCount[i]++;
+            }
+            i++;
+        }
+
+        outStart = new int[n + 1];
+        inStart = new int[n + 1];
+        int edges = 0;
+        for (Map.Entry<String, Map<String, Integer>> e : weights.entrySet()) {
+            Integer from = ids.get(e.getKey());
+            if (from == null) continue;
+            for (String toPkg : e.getValue().keySet()) {
+                Integer to = ids.get(toPkg);
+                if (to == null || to.equals(from)) continue;
+                outStart[from + 1]++;
+                inStart[to + 1]++;
+                edges++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            outStart[v + 1] += outStart[v];
+            inStart[v + 1] += inStart[v];
+        }
+        outTargets = new int[edges];
+        outWeights = new int[edges];
+        inSources = new int[edges];
+        inWeights = new int[edges];
+        int[] outPos = Arrays.copyOf(outStart, n);
+        int[] inPos = Arrays.copyOf(inStart, n);
+        for (Map.Entry<String, Map<String, Integer>> e : weights.entrySet()) {
+            Integer from = ids.get(e.getKey());
+            if (from == null) continue;
+            for (Map.Entry<String, Integer> t : e.getValue().entrySet()) {
+                Integer to = ids.get(t.getKey());
+                if (to == null || to.equals(from)) continue;
+                outTargets[outPos[from]] = to;
+                outWeights[outPos[from]++] = t.getValue();
+                inSources[inPos[to]] = from;
+                inWeights[inPos[to]++] = t.getValue();
+            }
+        }
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public int edgeCount() {
+        return outTargets.length;
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    public int id(String pkg) {
+        Integer id = ids.get(pkg);
+        return id == null ? -1 : id;
+    }
+
+    public int classCount(int id) {
+        return classCount[id];
+    }
+
+    public int interfaceCount(int id) {
+        return interfaceCount[id];
+    }
+
+    public int outStart(int id) {
+        return outStart[id];
+    }
+
+    public int outEnd(int id) {
+        return outStart[id + 1];
+    }
+
+    public int outTarget(int edge) {
+        return outTargets[edge];
+    }
+
+    public int outWeight(int edge) {
+        return outWeights[edge];
+    }
+
+    public int inStart(int id) {
+        return inStart[id];
+    }
+
+    public int inEnd(int id) {
+        return inStart[id + 1];
+    }
+
+    public int inSource(int edge) {
+        return inSources[edge];
+    }
+
+    public int inWeight(int edge) {
+        return inWeights[edge];
+    }
+
+    public int outDegree(int id) {
+        return outStart[id + 1] - outStart[id];
+    }
+
+    public int inDegree(int id) {
+        return inStart[id + 1] - inStart[id];
+    }
+}
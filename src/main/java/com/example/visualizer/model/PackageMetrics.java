@@ -0,0 +1,236 @@
+package com.example.visualizer.model;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+public class PackageMetrics {
+    private static final double DAMPING = 0.85;
+    private static final double EPSILON = 1e-9;
+    private static final int MAX_ITERATIONS = 100;
+    private static final int EXACT_BETWEENNESS_LIMIT = 2000;
+    private static final int BETWEENNESS_SAMPLES = 512;
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private final PackageGraph graph;
+    private final int[] fanIn, fanOut;
+    private final double[] instability, abstractness, distance;
+    private final double[] pageRank, betweenness;
+    private final boolean sampled;
+
+    private PackageMetrics(PackageGraph graph) {
+        this.graph = graph;
+        int n = graph.size();
+        fanIn = new int[n];
+        fanOut = new int[n];
+        instability = new double[n];
+        abstractness = new double[n];
+        distance = new double[n];
+        for (int v = 0; v < n; v++) {
+            fanIn[v] = graph.inDegree(v);
+            fanOut[v] = graph.outDegree(v);
+            instability[v] = instability(graph, v);
+            abstractness[v] = abstractness(graph, v);
+            distance[v] = distance(graph, v);
+        }
+        pageRank = computePageRank(graph);
+        sampled = n > EXACT_BETWEENNESS_LIMIT;
+        betweenness = computeBetweenness(graph, sampled);
+    }
+
+    public static PackageMetrics compute(PackageGraph graph) {
+        return new PackageMetrics(graph);
+    }
+
+    public static double instability(PackageGraph graph, int id) {
+        int coupling = graph.inDegree(id) + graph.outDegree(id);
+        return coupling == 0 ? 0.0 : (double) graph.outDegree(id) / coupling;
+    }
+
+    public static double abstractness(PackageGraph graph, int id) {
+        return graph.classCount(id) == 0 ? 0.0 : (double) graph.interfaceCount(id) / graph.classCount(id);
+    }
+
+    public static double distance(PackageGraph graph, int id) {
+        return Math.abs(abstractness(graph, id) + instability(graph, id) - 1.0);
+    }
+
+    public PackageGraph getGraph() {
+        return graph;
+    }
+
+    public int size() {
+        return graph.size();
+    }
+
+    public String name(int id) {
+        return graph.name(id);
+    }
+
+    public int getFanIn(int id) {
+        return fanIn[id];
+    }
+
+    public int getFanOut(int id) {
+        return fanOut[id];
+    }
+
+    public double getInstability(int id) {
+        return instability[id];
+    }
+
+    public double getAbstractness(int id) {
+        return abstractness[id];
+    }
+
+    public double getDistance(int id) {
+        return distance[id];
+    }
+
+    public double getPageRank(int id) {
+        return pageRank[id];
+    }
+
+    public double getBetweenness(int id) {
+        return betweenness[id];
+    }
+
+    public boolean isBetweennessSampled() {
+        return sampled;
+    }
+
+    public int[] topByPageRank(int limit) {
+        return top(pageRank, limit);
+    }
+
+    public int[] topByBetweenness(int limit) {
+        return top(betweenness, limit);
+    }
+
+    private static int[] top(double[] score, int limit) {
+        return IntStream.range(0, score.length).boxed()
+                .sorted((a, b) -> Double.compare(score[b], score[a]))
+                .limit(limit)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static double[] computePageRank(PackageGraph g) {
+        int n = g.size();
+        double[] rank = new double[n];
+        if (n == 0) return rank;
+        double[] next = new double[n];
+        double[] outWeight = new double[n];
+        for (int v = 0; v < n; v++) {
+            for (int e = g.outStart(v); e < g.outEnd(v); e++) outWeight[v] += g.outWeight(e);
+        }
+        Arrays.fill(rank, 1.0 / n);
+        for (int iter = 0; iter < MAX_ITERATIONS; iter++) {
+            double dangling = 0.0;
+            for (int v = 0; v < n; v++) {
+                if (outWeight[v] == 0.0) dangling += rank[v];
+            }
+            double base = (1.0 - DAMPING) / n + DAMPING * dangling / n;
+            double[] cur = rank, nxt = next;
+            parallel(n).forEach(v -> {
+                double sum = 0.0;
+                for (int e = g.inStart(v); e < g.inEnd(v); e++) {
+                    int u = g.inSource(e);
+                    sum += cur[u] * g.inWeight(e) / outWeight[u];
+                }
+                nxt[v] = base + DAMPING * sum;
+            });
+            double delta = 0.0;
+            for (int v = 0; v < n; v++) delta += Math.abs(next[v] - rank[v]);
+            rank = next;
+            next = cur;
+            if (delta < EPSILON) break;
+        }
+        return rank;
+    }
+
+    private static double[] computeBetweenness(PackageGraph g, boolean sampled) {
+        int n = g.size();
+        int[] sources;
+        if (sampled) {
+            Random random = new Random(n);
+            sources = random.ints(0, n).distinct().limit(BETWEENNESS_SAMPLES).toArray();
+        } else {
+            sources = IntStream.range(0, n).toArray();
+        }
+        int chunks = Math.max(1, Math.min(sources.length,
+                Runtime.getRuntime().availableProcessors() * 4));
+        double[] total = IntStream.range(0, chunks).parallel()
+                .mapToObj(c -> {
+                    double[] acc = new double[n];
+                    Brandes brandes = new Brandes(n);
+                    for (int i = c; i < sources.length; i += chunks) {
+                        brandes.accumulate(g, sources[i], acc);
+                    }
+                    return acc;
+                })
+                .reduce(new double[n], (a, b) -> {
+                    double[] sum = new double[n];
+                    for (int v = 0; v < n; v++) sum[v] = a[v] + b[v];
+                    return sum;
+                });
+        if (sampled && sources.length > 0) {
+            double scale = (double) n / sources.length;
+            for (int v = 0; v < n; v++) total[v] *= scale;
+        }
+        return total;
+    }
+
+    private static IntStream parallel(int n) {
+        IntStream range = IntStream.range(0, n);
+        return n >= PARALLEL_THRESHOLD ? range.parallel() : range;
+    }
+
+    private static class Brandes {
+        final int[] dist, order, queue;
+        final double[] sigma, delta;
+
+        Brandes(int n) {
+            dist = new int[n];
+            order = new int[n];
+            queue = new int[n];
+            sigma = new double[n];
+            delta = new double[n];
+            Arrays.fill(dist, -1);
+        }
+
+        void accumulate(PackageGraph g, int s, double[] acc) {
+            int head = 0, tail = 0, visited = 0;
+            dist[s] = 0;
+            sigma[s] = 1.0;
+            queue[tail++] = s;
+            while (head < tail) {
+                int v = queue[head++];
+                order[visited++] = v;
+                for (int e = g.outStart(v); e < g.outEnd(v); e++) {
+                    int w = g.outTarget(e);
+                    if (dist[w] < 0) {
+                        dist[w] = dist[v] + 1;
+                        queue[tail++] = w;
+                    }
+                    if (dist[w] == dist[v] + 1) sigma[w] += sigma[v] * g.outWeight(e);
+                }
+            }
+            for (int i = visited - 1; i >= 0; i--) {
+                int w = order[i];
+                for (int e = g.inStart(w); e < g.inEnd(w); e++) {
+                    int v = g.inSource(e);
+                    if (dist[v] >= 0 && dist[v] == dist[w] - 1) {
+                        delta[v] += sigma[v] * g.inWeight(e) / sigma[w] * (1.0 + delta[w]);
+                    }
+                }
+                if (w != s) acc[w] += delta[w];
+            }
+            for (int i = 0; i < visited; i++) {
+                int v = order[i];
+                dist[v] = -1;
+                sigma[v] = 0.0;
+                delta[v] = 0.0;
+            }
+        }
+    }
+}
@@ -1,55 +1,93 @@
 package com.example.visualizer.model;
 
-import org.jgrapht.graph.DefaultDirectedGraph;
-import org.jgrapht.graph.DefaultEdge;
-import org.jgrapht.alg.connectivity.KosarajuStrongConnectivityInspector;
+import com.example.visualizer.perf.Profiler;
+import com.example.visualizer.perf.Profiler.Phase;
 
+import java.io.Closeable;
 import java.io.InputStream;
 import java.util.*;
+import java.util.function.ObjIntConsumer;
 import java.util.stream.Collectors;
 
-public class ProjectModel {
+public class ProjectModel implements Closeable {
     private final Map<String, PackageNode> packages = new LinkedHashMap<>();
     private final List<Dependency> classDeps = new ArrayList<>();
-    private final Set<Set<String>> cycles = new HashSet<>();
     private final Map<String, Set<String>> pkgDeps = new LinkedHashMap<>();
+    private final Map<String, Map<String, Integer>> pkgWeights = new LinkedHashMap<>();
+    private DependencySpill spill;
+    private int version;
+    private PackageGraph packageGraph;
+    private PackageMetrics metrics;
+    private Condensation condensation;
+    private int graphVersion = -1, metricsVersion = -1, condensationVersion = -1;
+
+    public void spillDependencies(DependencySpill spill) {
+        if (!classDeps.isEmpty()) {
+            classDeps.forEach(spill::add);
+            classDeps.clear();
+        }
+        this.spill = spill;
+    }
+
+    public boolean isSpilling() {
+        return spill != null;
+    }
+
+    @Override
+    public void close() {
+        if (spill != null) spill.close();
+    }
 
     public void addClass(String pkgName, String className, boolean isInterface) {
-        packages.computeIfAbsent(pkgName, PackageNode::new)
-                .addClass(new ClassNode(className, isInterface, pkgName));
+        version++;
+        PackageNode pkg = packages.get(pkgName);
+        if (pkg == null) {
+            pkg = new PackageNode(pkgName);
+            packages.put(pkgName, pkg);
+        }
+        pkg.addClass(new ClassNode(className, isInterface, pkg.getName()));
     }
 
     public void addClassFromBytecode(InputStream in) {
     }
 
     public void addDependency(String fromPkg, String from, String toPkg, String to, Dependency.Type type) {
-        classDeps.add(new Dependency(fromPkg, from, toPkg, to, type));
+        addDependency(new Dependency(fromPkg, from, toPkg, to, type));
     }
 
-    public void computePackageDependencies() {
-        classDeps.forEach(d -> {
-            pkgDeps.computeIfAbsent(d.getFromPkg(), k -> new HashSet<>())
-                    .add(d.getToPkg());
-        });
+    public void addDependency(Dependency dep) {
+        version++;
+        if (spill != null) spill.add(dep);
+        else classDeps.add(dep);
     }
 
-    public void computeCycles() {
-        DefaultDirectedGraph<String, DefaultEdge> graph =
-                new DefaultDirectedGraph<>(DefaultEdge.class);
-        packages.keySet().forEach(graph::addVertex);
+    public void forEachDependency(ObjIntConsumer<Dependency> action) {
+        if (spill != null) spill.forEach(action);
+        else classDeps.forEach(d -> action.accept(d, 1));
+    }
 
-        pkgDeps.forEach((from, tos) -> {
-            tos.stream()
-                    .filter(to -> graph.containsVertex(to))
-                    .forEach(to -> graph.addEdge(from, to));
-        });
+    public long getDependencyCount() {
+        return spill != null ? spill.size() : classDeps.size();
+    }
 
-        KosarajuStrongConnectivityInspector<String, DefaultEdge> inspector =
-                new KosarajuStrongConnectivityInspector<>(graph);
-        inspector.stronglyConnectedSets().stream()
-                .filter(scc -> scc.size() > 1)
-                .forEach(cycles::add);
+    public void computePackageDependencies() {
+        try (Profiler.Span span = Profiler.get().begin(Phase.AGGREGATE)) {
+            version++;
+            pkgDeps.clear();
+            pkgWeights.clear();
+            forEachDependency((d, times) -> {
+                pkgDeps.computeIfAbsent(d.getFromPkg(), k -> new HashSet<>())
+                        .add(d.getToPkg());
+                pkgWeights.computeIfAbsent(d.getFromPkg(), k -> new HashMap<>())
+                        .merge(d.getToPkg(), times, Integer::sum);
+            });
+        }
     }
+
+    public void computeCycles() {
+        getCondensation();
+    }
+
     public Map<String, Integer> getOutgoingCount() {
         return pkgDeps.entrySet().stream()
                 .collect(Collectors.toMap(
@@ -72,25 +110,57 @@ public class ProjectModel {
     }
 
     public int getMaxDependencyDepth() {
-        Map<String, Integer> memo = new HashMap<>();
-        return packages.keySet().stream()
-                .mapToInt(pkg -> depthFrom(pkg, memo))
-                .max().orElse(0);
-    }
-    private int depthFrom(String pkg, Map<String, Integer> memo) {
-        if (memo.containsKey(pkg)) return memo.get(pkg);
-        int best = 0;
-        for (String to : pkgDeps.getOrDefault(pkg, Collections.emptySet())) {
-            best = Math.max(best, 1 + depthFrom(to, memo));
+        return getCondensation().getMaxDepth();
+    }
+
+    public synchronized Condensation getCondensation() {
+        if (condensationVersion != version) {
+            PackageGraph g = getPackageGraph();
+            try (Profiler.Span span = Profiler.get().begin(Phase.SCC)) {
+                condensation = Condensation.compute(g);
+            }
+            condensationVersion = version;
+        }
+        return condensation;
+    }
+
+    public synchronized PackageGraph getPackageGraph() {
+        if (graphVersion != version) {
+            packageGraph = new PackageGraph(packages.values(), pkgWeights);
+            graphVersion = version;
         }
-        memo.put(pkg, best);
-        return best;
+        return packageGraph;
+    }
+
+    public synchronized PackageMetrics getMetrics() {
+        if (metricsVersion != version) {
+            PackageGraph g = getPackageGraph();
+            try (Profiler.Span span = Profiler.get().begin(Phase.METRICS)) {
+                metrics = PackageMetrics.compute(g);
+            }
+            metricsVersion = version;
+        }
+        return metrics;
     }
 
     public Set<Set<String>> getCycles() {
+        Condensation c = getCondensation();
+        Set<Set<String>> cycles = new LinkedHashSet<>();
+        for (int k = 0; k < c.getCycleCount(); k++) {
+            Set<String> names = new LinkedHashSet<>();
+            for (int v : c.getCycleMembers(k)) names.add(c.getGraph().name(v));
+            cycles.add(names);
+        }
         return cycles;
     }
 
+    public List<int[]> getCycleMembers() {
+        Condensation c = getCondensation();
+        List<int[]> members = new ArrayList<>(c.getCycleCount());
+        for (int k = 0; k < c.getCycleCount(); k++) members.add(c.getCycleMembers(k));
+        return members;
+    }
+
     public Set<String> getPackageNames() {
         return packages.keySet();
     }
@@ -99,7 +169,26 @@ public class ProjectModel {
         return packages.values();
     }
 
+    public PackageNode getPackage(String pkg) {
+        return packages.get(pkg);
+    }
+
+    public int getPackageId(String pkg) {
+        return getPackageGraph().id(pkg);
+    }
+
+    public int getSccId(int packageId) {
+        return getCondensation().getCycle(packageId);
+    }
+
+    public boolean inSameCycle(int fromId, int toId) {
+        int scc = getSccId(fromId);
+        return scc >= 0 && scc == getSccId(toId);
+    }
+
     public List<Dependency> getClassDependencies() {
+        if (spill != null)
+            throw new IllegalStateException("Class dependencies are spilled to disk; use forEachDependency");
         return classDeps;
     }
 
@@ -107,7 +196,12 @@ public class ProjectModel {
         return pkgDeps;
     }
 
+    public Map<String, Map<String, Integer>> getPackageDependencyWeights() {
+        return pkgWeights;
+    }
+
     public int getClassCount(String pkg) {
-        return packages.getOrDefault(pkg, new PackageNode(pkg)).getClasses().size();
+        PackageNode node = packages.get(pkg);
+        return node == null ? 0 : node.getClasses().size();
     }
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.example.visualizer.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+public final class StrongComponents {
+    private StrongComponents() {
+    }
+
+    public static int label(int[] start, int[] target, BitSet removed, int[] comp) {
+        int n = start.length - 1;
+        int[] index = new int[n], low = new int[n], edge = new int[n];
+        int[] stack = new int[n], calls = new int[n];
+        boolean[] onStack = new boolean[n];
+        Arrays.fill(index, -1);
+        int counter = 0, sp = 0, next = 0;
+        for (int s = 0; s < n; s++) {
+            if (index[s] >= 0) continue;
+            int cs = 0;
+            calls[cs++] = s;
+            index[s] = low[s] = counter++;
+            stack[sp++] = s;
+            onStack[s] = true;
+            edge[s] = start[s];
+            while (cs > 0) {
+                int v = calls[cs - 1];
+                if (edge[v] < start[v + 1]) {
+                    int e = edge[v]++;
+                    if (removed != null && removed.get(e)) continue;
+                    int w = target[e];
+                    if (index[w] < 0) {
+                        index[w] = low[w] = counter++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        edge[w] = start[w];
+                        calls[cs++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                } else {
+                    cs--;
+                    if (low[v] == index[v]) {
+                        int w;
+                        do {
+                            w = stack[--sp];
+                            onStack[w] = false;
+                            comp[w] = next;
+                        } while (w != v);
+                        next++;
+                    }
+                    if (cs > 0) {
+                        int u = calls[cs - 1];
+                        low[u] = Math.min(low[u], low[v]);
+                    }
+                }
+            }
+        }
+        return next;
+    }
+}
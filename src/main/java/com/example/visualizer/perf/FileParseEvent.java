@@ -0,0 +1,22 @@
+package com.example.visualizer.perf;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.visualizer.FileParse")
+@Label("Source File Analyzed")
+@Category("Java Architecture Visualizer")
+class FileParseEvent extends Event {
+    @Label("Path")
+    String path;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Parsed")
+    boolean success;
+}
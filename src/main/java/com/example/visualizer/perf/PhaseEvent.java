@@ -0,0 +1,21 @@
+package com.example.visualizer.perf;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("com.example.visualizer.Phase")
+@Label("Analysis Phase")
+@Category("Java Architecture Visualizer")
+@Description("One timed phase of a project analysis or of rendering the graph")
+class PhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("CPU Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long cpuTime;
+}
@@ -0,0 +1,320 @@
+package com.example.visualizer.perf;
+
+import com.example.visualizer.util.JsonWriter;
+import jdk.jfr.EventType;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class Profiler implements ProfilerMXBean {
+    public enum Phase {
+        WALK, READ, PARSE, EXTRACT, AGGREGATE, SCC, METRICS, CUTS, LAYOUT, RENDER
+    }
+
+    public static final class FileTiming {
+        private final String path;
+        private final long bytes, nanos;
+
+        FileTiming(String path, long bytes, long nanos) {
+            this.path = path;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+        public String path() {
+            return path;
+        }
+        public long bytes() {
+            return bytes;
+        }
+        public long nanos() {
+            return nanos;
+        }
+    }
+
+    private static final int SLOWEST_LIMIT = 10;
+    private static final Profiler INSTANCE = new Profiler();
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE,
+                    new ObjectName("com.example.visualizer:type=Profiler"));
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final EventType phaseEvents = EventType.getEventType(PhaseEvent.class);
+    private final EventType fileEvents = EventType.getEventType(FileParseEvent.class);
+    private final Phase[] phases = Phase.values();
+    private final LongAdder[] wallNanos = adders(phases.length);
+    private final LongAdder[] cpuNanos = adders(phases.length);
+    private final LongAdder files = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder parseFailures = new LongAdder();
+    private final LongAdder readFailures = new LongAdder();
+    private final LongAdder analysisNanos = new LongAdder();
+    private final PriorityQueue<FileTiming> slowest =
+            new PriorityQueue<>(Comparator.comparingLong(FileTiming::nanos));
+    private volatile boolean enabled = Boolean.getBoolean("visualizer.profile");
+    private volatile long analysisStart;
+
+    private Profiler() {
+    }
+
+    public static Profiler get() {
+        return INSTANCE;
+    }
+
+    public Span begin(Phase phase) {
+        boolean jfr = phaseEvents.isEnabled();
+        if (!enabled && !jfr) return Span.NOOP;
+        return new Span(phase, jfr ? new PhaseEvent() : null);
+    }
+
+    public void startAnalysis() {
+        analysisStart = System.nanoTime();
+    }
+
+    public void finishAnalysis() {
+        long start = analysisStart;
+        if (start == 0L) return;
+        analysisNanos.add(System.nanoTime() - start);
+        analysisStart = 0L;
+    }
+
+    public long beginFile() {
+        return enabled || fileEvents.isEnabled() ? System.nanoTime() : 0L;
+    }
+
+    public void endFile(String path, long size, long start, boolean parsed) {
+        files.increment();
+        bytes.add(size);
+        if (start == 0L) return;
+        long nanos = System.nanoTime() - start;
+        if (fileEvents.isEnabled()) {
+            FileParseEvent event = new FileParseEvent();
+            event.path = path;
+            event.bytes = size;
+            event.success = parsed;
+            event.commit();
+        }
+        if (!enabled) return;
+        synchronized (slowest) {
+            if (slowest.size() < SLOWEST_LIMIT) {
+                slowest.add(new FileTiming(path, size, nanos));
+            } else if (slowest.peek().nanos() < nanos) {
+                slowest.poll();
+                slowest.add(new FileTiming(path, size, nanos));
+            }
+        }
+    }
+
+    public void recordParseFailure(String path, String problem) {
+        parseFailures.increment();
+        System.err.println("Cannot parse " + path + ": " + problem);
+    }
+
+    public void recordReadFailure(Object path, IOException e) {
+        readFailures.increment();
+        System.err.println("Cannot read " + path + ": " + e.getMessage());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public long getFilesAnalyzed() {
+        return files.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getParseFailures() {
+        return parseFailures.sum();
+    }
+
+    @Override
+    public long getReadFailures() {
+        return readFailures.sum();
+    }
+
+    @Override
+    public double getFilesPerSecond() {
+        return perSecond(files.sum());
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return perSecond(bytes.sum());
+    }
+
+    @Override
+    public Map<String, Long> getPhaseWallMillis() {
+        return millis(wallNanos);
+    }
+
+    @Override
+    public Map<String, Long> getPhaseCpuMillis() {
+        return millis(cpuNanos);
+    }
+
+    @Override
+    public List<String> getSlowestFiles() {
+        List<String> out = new ArrayList<>();
+        for (FileTiming t : slowestFiles()) {
+            out.add(t.path() + " (" + t.nanos() / 1_000_000 + " ms, " + t.bytes() + " bytes)");
+        }
+        return out;
+    }
+
+    public List<FileTiming> slowestFiles() {
+        List<FileTiming> out;
+        synchronized (slowest) {
+            out = new ArrayList<>(slowest);
+        }
+        out.sort(Comparator.comparingLong(FileTiming::nanos).reversed());
+        return out;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < phases.length; i++) {
+            wallNanos[i].reset();
+            cpuNanos[i].reset();
+        }
+        files.reset();
+        bytes.reset();
+        parseFailures.reset();
+        readFailures.reset();
+        analysisNanos.reset();
+        synchronized (slowest) {
+            slowest.clear();
+        }
+        analysisStart = 0L;
+    }
+
+    public List<String> summary() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Files: %d (%.1f/s), %d KB (%.1f KB/s)",
+                getFilesAnalyzed(), getFilesPerSecond(),
+                getBytesRead() / 1024, getBytesPerSecond() / 1024));
+        lines.add("Parse failures: " + getParseFailures()
+                + ", read failures: " + getReadFailures());
+        for (Phase phase : phases) {
+            long wall = wallNanos[phase.ordinal()].sum();
+            if (wall == 0L) continue;
+            lines.add(String.format("%-10s wall %6d ms, cpu %6d ms", phase.name().toLowerCase(),
+                    wall / 1_000_000, cpuNanos[phase.ordinal()].sum() / 1_000_000));
+        }
+        for (FileTiming t : slowestFiles()) {
+            lines.add("slow: " + t.path() + " " + t.nanos() / 1_000_000 + " ms");
+        }
+        return lines;
+    }
+
+    public void writeJson(JsonWriter w) throws IOException {
+        w.beginObject();
+        w.name("files").value(getFilesAnalyzed());
+        w.name("bytes").value(getBytesRead());
+        w.name("parseFailures").value(getParseFailures());
+        w.name("readFailures").value(getReadFailures());
+        w.name("filesPerSecond").value(getFilesPerSecond());
+        w.name("bytesPerSecond").value(getBytesPerSecond());
+        w.name("phases").beginObject();
+        for (Phase phase : phases) {
+            w.name(phase.name().toLowerCase()).beginObject()
+                    .name("wallNanos").value(wallNanos[phase.ordinal()].sum())
+                    .name("cpuNanos").value(cpuNanos[phase.ordinal()].sum())
+                    .endObject();
+        }
+        w.endObject();
+        w.name("slowestFiles").beginArray();
+        for (FileTiming t : slowestFiles()) {
+            w.beginObject()
+                    .name("path").value(t.path())
+                    .name("bytes").value(t.bytes())
+                    .name("nanos").value(t.nanos())
+                    .endObject();
+        }
+        w.endArray();
+        w.endObject();
+    }
+
+    private double perSecond(long count) {
+        long start = analysisStart;
+        long elapsed = analysisNanos.sum() + (start == 0L ? 0L : System.nanoTime() - start);
+        return elapsed <= 0L ? 0.0 : count * 1e9 / elapsed;
+    }
+
+    private Map<String, Long> millis(LongAdder[] nanos) {
+        Map<String, Long> out = new LinkedHashMap<>();
+        for (Phase phase : phases) {
+            out.put(phase.name().toLowerCase(), nanos[phase.ordinal()].sum() / 1_000_000);
+        }
+        return out;
+    }
+
+    private long cpuTime() {
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : 0L;
+    }
+
+    private static LongAdder[] adders(int n) {
+        LongAdder[] out = new LongAdder[n];
+        for (int i = 0; i < n; i++) out[i] = new LongAdder();
+        return out;
+    }
+
+    public static final class Span implements AutoCloseable {
+        static final Span NOOP = new Span();
+
+        private final Phase phase;
+        private final PhaseEvent event;
+        private final long wallStart, cpuStart;
+
+        private Span() {
+            this.phase = null;
+            this.event = null;
+            this.wallStart = this.cpuStart = 0L;
+        }
+
+        private Span(Phase phase, PhaseEvent event) {
+            this.phase = phase;
+            this.event = event;
+            this.cpuStart = INSTANCE.cpuTime();
+            this.wallStart = System.nanoTime();
+            if (event != null) event.begin();
+        }
+
+        @Override
+        public void close() {
+            if (phase == null) return;
+            long wall = System.nanoTime() - wallStart;
+            long cpu = INSTANCE.cpuTime() - cpuStart;
+            INSTANCE.wallNanos[phase.ordinal()].add(wall);
+            INSTANCE.cpuNanos[phase.ordinal()].add(cpu);
+            if (event != null) {
+                event.end();
+                event.phase = phase.name().toLowerCase();
+                event.cpuTime = cpu;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.visualizer.perf;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ProfilerMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getFilesAnalyzed();
+
+    long getBytesRead();
+
+    long getParseFailures();
+
+    long getReadFailures();
+
+    double getFilesPerSecond();
+
+    double getBytesPerSecond();
+
+    Map<String, Long> getPhaseWallMillis();
+
+    Map<String, Long> getPhaseCpuMillis();
+
+    List<String> getSlowestFiles();
+
+    void reset();
+}
@@ -0,0 +1,63 @@
+package com.example.visualizer.rules;
+
+import java.util.*;
+
+class CycleRule implements Rule {
+    private final String text, pattern;
+    private final List<Set<String>> allowed;
+
+    CycleRule(String text, String pattern, List<Set<String>> allowed) {
+        this.text = text;
+        this.pattern = pattern;
+        this.allowed = allowed;
+    }
+
+    @Override
+    public String text() {
+        return text;
+    }
+
+    @Override
+    public void check(RuleContext ctx, List<Violation> out) {
+        BitSet scope = ctx.match(pattern);
+        List<int[]> cycles = ctx.model.getCycleMembers();
+        for (int scc = 0; scc < cycles.size(); scc++) {
+            int[] members = cycles.get(scc);
+            if (Arrays.stream(members).noneMatch(scope::get)) continue;
+            Set<String> names = new TreeSet<>();
+            for (int v : members) names.add(ctx.graph.name(v));
+            if (allowed.stream().anyMatch(a -> a.containsAll(names))) continue;
+            boolean grown = allowed.stream().anyMatch(a -> names.stream().anyMatch(a::contains));
+            out.add(new Violation(text,
+                    (grown ? "Cycle grew to " : "New cycle of ") + names.size() + " packages: "
+                            + String.join(", ", names),
+                    shortestCycle(ctx, members[0], scc)));
+        }
+    }
+
+    private List<Violation.Link> shortestCycle(RuleContext ctx, int start, int scc) {
+        Map<Integer, Integer> parent = new HashMap<>();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(start);
+        int last = -1;
+        while (!queue.isEmpty() && last < 0) {
+            int u = queue.poll();
+            for (int e = ctx.graph.outStart(u); e < ctx.graph.outEnd(u); e++) {
+                int v = ctx.graph.outTarget(e);
+                if (ctx.model.getSccId(v) != scc) continue;
+                if (v == start) {
+                    last = u;
+                    break;
+                }
+                if (parent.putIfAbsent(v, u) == null) queue.add(v);
+            }
+        }
+        LinkedList<Violation.Link> chain = new LinkedList<>();
+        if (last < 0) return chain;
+        chain.addFirst(ctx.linkTo(last, start));
+        for (int v = last; v != start; v = parent.get(v)) {
+            chain.addFirst(ctx.linkTo(parent.get(v), v));
+        }
+        return chain;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.visualizer.rules;
+
+import java.util.*;
+
+class DenyRule implements Rule {
+    private final String text, from, to;
+
+    DenyRule(String text, String from, String to) {
+        this.text = text;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public String text() {
+        return text;
+    }
+
+    @Override
+    public void check(RuleContext ctx, List<Violation> out) {
+        BitSet sources = ctx.match(from), targets = ctx.match(to);
+        if (sources.isEmpty() || targets.isEmpty()) return;
+        for (int u = sources.nextSetBit(0); u >= 0; u = sources.nextSetBit(u + 1)) {
+            for (int e = ctx.graph.outStart(u); e < ctx.graph.outEnd(u); e++) {
+                int v = ctx.graph.outTarget(e);
+                if (!targets.get(v)) continue;
+                out.add(new Violation(text,
+                        ctx.graph.name(u) + " must not depend on " + ctx.graph.name(v),
+                        List.of(ctx.link(u, e))));
+            }
+        }
+    }
+}
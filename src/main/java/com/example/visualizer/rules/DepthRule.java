@@ -0,0 +1,42 @@
+package com.example.visualizer.rules;
+
+import com.example.visualizer.model.Condensation;
+
+import java.util.*;
+
+class DepthRule implements Rule {
+    private final String text, pattern;
+    private final int max;
+
+    DepthRule(String text, int max, String pattern) {
+        this.text = text;
+        this.max = max;
+        this.pattern = pattern;
+    }
+
+    @Override
+    public String text() {
+        return text;
+    }
+
+    @Override
+    public void check(RuleContext ctx, List<Violation> out) {
+        Condensation depth = ctx.condensation();
+        BitSet scope = ctx.match(pattern);
+        int deepest = -1, exceeding = 0;
+        for (int v = scope.nextSetBit(0); v >= 0; v = scope.nextSetBit(v + 1)) {
+            if (depth.getDepth(v) <= max) continue;
+            exceeding++;
+            if (deepest < 0 || depth.getDepth(v) > depth.getDepth(deepest)) deepest = v;
+        }
+        if (deepest < 0) return;
+        List<Violation.Link> chain = new ArrayList<>();
+        for (int v = deepest; depth.getChainEdge(v) >= 0; v = ctx.graph.outTarget(depth.getChainEdge(v))) {
+            chain.add(ctx.link(depth.getChainFrom(v), depth.getChainEdge(v)));
+        }
+        out.add(new Violation(text,
+                "Dependency chain from " + ctx.graph.name(deepest) + " has depth " + depth.getDepth(deepest)
+                        + " (max " + max + ", " + exceeding + " packages exceed it)",
+                chain));
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.visualizer.rules;
+
+import java.util.*;
+
+class FanOutRule implements Rule {
+    private final String text, pattern;
+    private final int max;
+
+    FanOutRule(String text, int max, String pattern) {
+        this.text = text;
+        this.max = max;
+        this.pattern = pattern;
+    }
+
+    @Override
+    public String text() {
+        return text;
+    }
+
+    @Override
+    public void check(RuleContext ctx, List<Violation> out) {
+        BitSet packages = ctx.match(pattern);
+        for (int u = packages.nextSetBit(0); u >= 0; u = packages.nextSetBit(u + 1)) {
+            int fanOut = ctx.graph.outDegree(u);
+            if (fanOut <= max) continue;
+            List<Violation.Link> chain = new ArrayList<>();
+            for (int e = ctx.graph.outStart(u); e < ctx.graph.outEnd(u); e++) {
+                chain.add(ctx.link(u, e));
+            }
+            out.add(new Violation(text,
+                    ctx.graph.name(u) + " depends on " + fanOut + " packages (max " + max + ")",
+                    chain));
+        }
+    }
+}
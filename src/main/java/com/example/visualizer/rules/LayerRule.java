@@ -0,0 +1,42 @@
+package com.example.visualizer.rules;
+
+import java.util.*;
+
+class LayerRule implements Rule {
+    private final String text;
+    private final List<String> layers;
+
+    LayerRule(String text, List<String> layers) {
+        this.text = text;
+        this.layers = layers;
+    }
+
+    @Override
+    public String text() {
+        return text;
+    }
+
+    @Override
+    public void check(RuleContext ctx, List<Violation> out) {
+        int n = ctx.graph.size();
+        int[] layer = new int[n];
+        Arrays.fill(layer, -1);
+        for (int i = 0; i < layers.size(); i++) {
+            BitSet bits = ctx.match(layers.get(i));
+            for (int v = bits.nextSetBit(0); v >= 0; v = bits.nextSetBit(v + 1)) {
+                if (layer[v] < 0) layer[v] = i;
+            }
+        }
+        for (int u = 0; u < n; u++) {
+            if (layer[u] <= 0) continue;
+            for (int e = ctx.graph.outStart(u); e < ctx.graph.outEnd(u); e++) {
+                int v = ctx.graph.outTarget(e);
+                if (layer[v] < 0 || layer[v] >= layer[u]) continue;
+                out.add(new Violation(text,
+                        ctx.graph.name(u) + " (layer " + layers.get(layer[u]) + ") must not depend on "
+                                + ctx.graph.name(v) + " (layer " + layers.get(layer[v]) + ")",
+                        List.of(ctx.link(u, e))));
+            }
+        }
+    }
+}
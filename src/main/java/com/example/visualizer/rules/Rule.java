@@ -0,0 +1,9 @@
+package com.example.visualizer.rules;
+
+import java.util.List;
+
+interface Rule {
+    String text();
+
+    void check(RuleContext ctx, List<Violation> out);
+}
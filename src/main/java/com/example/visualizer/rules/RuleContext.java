@@ -0,0 +1,82 @@
+package com.example.visualizer.rules;
+
+import com.example.visualizer.model.Condensation;
+import com.example.visualizer.model.PackageGraph;
+import com.example.visualizer.model.ProjectModel;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+class RuleContext {
+    final ProjectModel model;
+    final PackageGraph graph;
+    private final Map<String, BitSet> matches = new HashMap<>();
+    private Condensation condensation;
+
+    RuleContext(ProjectModel model) {
+        this.model = model;
+        this.graph = model.getPackageGraph();
+    }
+
+    BitSet match(String pattern) {
+        return matches.computeIfAbsent(pattern, p -> {
+            BitSet bits = new BitSet(graph.size());
+            if (p.equals("**")) {
+                bits.set(0, graph.size());
+                return bits;
+            }
+            if (p.indexOf('*') < 0) {
+                int id = graph.id(p);
+                if (id >= 0) bits.set(id);
+                return bits;
+            }
+            Pattern regex = Pattern.compile(toRegex(p));
+            for (int id = 0; id < graph.size(); id++) {
+                if (regex.matcher(graph.name(id)).matches()) bits.set(id);
+            }
+            return bits;
+        });
+    }
+
+    Condensation condensation() {
+        if (condensation == null) condensation = model.getCondensation();
+        return condensation;
+    }
+
+    Violation.Link link(int from, int edge) {
+        int to = graph.outTarget(edge);
+        return new Violation.Link(from, to, graph.name(from), graph.name(to), graph.outWeight(edge));
+    }
+
+    Violation.Link linkTo(int from, int to) {
+        for (int e = graph.outStart(from); e < graph.outEnd(from); e++) {
+            if (graph.outTarget(e) == to) return link(from, e);
+        }
+        return new Violation.Link(from, to, graph.name(from), graph.name(to), 0);
+    }
+
+    static String toRegex(String glob) {
+        String suffix = "";
+        if (glob.endsWith(".**")) {
+            glob = glob.substring(0, glob.length() - 3);
+            suffix = "(\\..*)?";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                    sb.append(".*");
+                    i++;
+                } else {
+                    sb.append("[^.]*");
+                }
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_') {
+                sb.append(c);
+            } else {
+                sb.append('\\').append(c);
+            }
+        }
+        return sb.append(suffix).toString();
+    }
+}
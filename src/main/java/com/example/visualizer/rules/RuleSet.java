@@ -0,0 +1,114 @@
+package com.example.visualizer.rules;
+
+import com.example.visualizer.model.PackageGraph;
+import com.example.visualizer.model.ProjectModel;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+public class RuleSet {
+    private static final int MAX_EXAMPLES = 5;
+
+    private final List<Rule> rules;
+
+    private RuleSet(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    public static RuleSet load(Path file) throws IOException {
+        return parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    public static RuleSet parse(List<String> lines) {
+        List<Rule> rules = new ArrayList<>();
+        List<Set<String>> allowedCycles = new ArrayList<>();
+        List<String[]> cycleRules = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment).strip();
+            if (line.isEmpty()) continue;
+            String[] t = line.split("\\s+");
+            try {
+                switch (t[0]) {
+                    case "deny" -> {
+                        if (t.length != 4 || !t[2].equals("->"))
+                            throw new IllegalArgumentException("expected: deny <from> -> <to>");
+                        rules.add(new DenyRule(line, t[1], t[3]));
+                    }
+                    case "layers" -> {
+                        List<String> layers = new ArrayList<>();
+                        for (int k = 1; k < t.length; k += 2) {
+                            if (k + 1 < t.length && !t[k + 1].equals(">"))
+                                throw new IllegalArgumentException("expected: layers <top> > <lower> > ...");
+                            layers.add(t[k]);
+                        }
+                        if (layers.size() < 2 || t.length % 2 != 0)
+                            throw new IllegalArgumentException("expected: layers <top> > <lower> > ...");
+                        rules.add(new LayerRule(line, layers));
+                    }
+                    case "no-cycles" -> {
+                        if (t.length > 2) throw new IllegalArgumentException("expected: no-cycles [<packages>]");
+                        cycleRules.add(new String[]{line, t.length == 2 ? t[1] : "**"});
+                    }
+                    case "allow-cycle" -> {
+                        if (t.length < 3) throw new IllegalArgumentException("expected: allow-cycle <pkg> <pkg> ...");
+                        allowedCycles.add(new HashSet<>(Arrays.asList(t).subList(1, t.length)));
+                    }
+                    case "max-fan-out" -> {
+                        if (t.length < 2 || t.length > 3)
+                            throw new IllegalArgumentException("expected: max-fan-out <n> [<packages>]");
+                        rules.add(new FanOutRule(line, Integer.parseInt(t[1]), t.length == 3 ? t[2] : "**"));
+                    }
+                    case "max-depth" -> {
+                        if (t.length < 2 || t.length > 3)
+                            throw new IllegalArgumentException("expected: max-depth <n> [<packages>]");
+                        rules.add(new DepthRule(line, Integer.parseInt(t[1]), t.length == 3 ? t[2] : "**"));
+                    }
+                    default -> throw new IllegalArgumentException("unknown rule '" + t[0] + "'");
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Rule line " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        for (String[] c : cycleRules) {
+            rules.add(new CycleRule(c[0], c[1], allowedCycles));
+        }
+        return new RuleSet(rules);
+    }
+
+    public int size() {
+        return rules.size();
+    }
+
+    public List<Violation> check(ProjectModel model) {
+        RuleContext ctx = new RuleContext(model);
+        List<Violation> violations = new ArrayList<>();
+        for (Rule rule : rules) {
+            rule.check(ctx, violations);
+        }
+        attachExamples(model, ctx.graph, violations);
+        return violations;
+    }
+
+    private static void attachExamples(ProjectModel model, PackageGraph graph, List<Violation> violations) {
+        Map<Long, List<Violation.Link>> links = new HashMap<>();
+        long n = graph.size();
+        for (Violation v : violations) {
+            for (Violation.Link link : v.getChain()) {
+                links.computeIfAbsent(link.getFromId() * n + link.getToId(), k -> new ArrayList<>()).add(link);
+            }
+        }
+        if (links.isEmpty()) return;
+        model.forEachDependency((d, times) -> {
+            int from = graph.id(d.getFromPkg()), to = graph.id(d.getToPkg());
+            if (from < 0 || to < 0) return;
+            List<Violation.Link> matching = links.get(from * n + to);
+            if (matching == null) return;
+            for (Violation.Link link : matching) link.addExample(d, times, MAX_EXAMPLES);
+        });
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.visualizer.rules;
+
+import com.example.visualizer.model.Dependency;
+
+import java.util.*;
+
+public class Violation {
+    public static class Link {
+        private final int fromId, toId;
+        private final String fromPkg, toPkg;
+        private final int weight;
+        private final List<Dependency> examples = new ArrayList<>();
+        private final List<Integer> counts = new ArrayList<>();
+        private final Map<String, Integer> index = new HashMap<>();
+
+        Link(int fromId, int toId, String fromPkg, String toPkg, int weight) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.fromPkg = fromPkg;
+            this.toPkg = toPkg;
+            this.weight = weight;
+        }
+        public int getFromId() {
+            return fromId;
+        }
+        public int getToId() {
+            return toId;
+        }
+        public String getFromPkg() {
+            return fromPkg;
+        }
+        public String getToPkg() {
+            return toPkg;
+        }
+        public int getWeight() {
+            return weight;
+        }
+        public List<Dependency> getExamples() {
+            return examples;
+        }
+        public List<Integer> getCounts() {
+            return counts;
+        }
+
+        void addExample(Dependency d, int times, int limit) {
+            String key = d.getFrom() + '\0' + d.getTo() + '\0' + d.getType();
+            Integer i = index.get(key);
+            if (i != null) {
+                counts.set(i, counts.get(i) + times);
+            } else if (examples.size() < limit) {
+                index.put(key, examples.size());
+                examples.add(d);
+                counts.add(times);
+            }
+        }
+    }
+
+    private final String rule;
+    private final String message;
+    private final List<Link> chain;
+
+    Violation(String rule, String message, List<Link> chain) {
+        this.rule = rule;
+        this.message = message;
+        this.chain = chain;
+    }
+    public String getRule() {
+        return rule;
+    }
+    public String getMessage() {
+        return message;
+    }
+    public List<Link> getChain() {
+        return chain;
+    }
+}
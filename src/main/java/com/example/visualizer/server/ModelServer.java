@@ -0,0 +1,403 @@
+package com.example.visualizer.server;
+
+import com.example.visualizer.analyzer.ProjectAnalyzer;
+import com.example.visualizer.model.Dependency;
+import com.example.visualizer.model.PackageGraph;
+import com.example.visualizer.model.PackageMetrics;
+import com.example.visualizer.model.ProjectModel;
+import com.example.visualizer.util.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ModelServer implements Closeable {
+    private static final long QUIET_PERIOD_MS = 300;
+    private static final Set<String> OUTPUT_DIRS = Set.of("build", "target", "out", "bin");
+
+    private final Path root;
+    private final ProjectAnalyzer analyzer;
+    private final AtomicReference<ModelSnapshot> snapshot = new AtomicReference<>();
+    private final Map<Path, WatchKey> watchedDirs = new HashMap<>();
+    private final ExecutorService requests = newRequestExecutor();
+    private HttpServer server;
+    private WatchService watcher;
+    private Thread watchThread;
+
+    public ModelServer(Path root, ProjectAnalyzer analyzer, ProjectModel initial) {
+        this.root = root;
+        this.analyzer = analyzer;
+        if (analyzer.isSpilling())
+            throw new IllegalArgumentException("The model server keeps dependencies in memory and cannot spill");
+        analyzer.enableFactsCache();
+        analyzer.pruneFactsCache();
+        snapshot.set(new ModelSnapshot(1, initial));
+    }
+
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(requests);
+        server.start();
+        if (Files.isDirectory(root)) {
+            watcher = root.getFileSystem().newWatchService();
+            registerDirectories(root);
+            watchThread = new Thread(this::watch, "model-watcher");
+            watchThread.setDaemon(true);
+            watchThread.start();
+        }
+        System.err.println("Serving " + root + " on http://" + server.getAddress().getHostString()
+                + ":" + server.getAddress().getPort() + "/");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (server != null) server.stop(0);
+        if (watchThread != null) watchThread.interrupt();
+        if (watcher != null) watcher.close();
+        requests.shutdownNow();
+    }
+
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "model-server-request");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watcher.take();
+                Set<Path> changed = new LinkedHashSet<>();
+                boolean overflow = false;
+                do {
+                    overflow |= handleEvents(key, changed);
+                } while ((key = watcher.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS)) != null);
+                if (overflow) refresh(null);
+                else if (!changed.isEmpty()) refresh(changed);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean handleEvents(WatchKey key, Set<Path> changed) {
+        Path dir = (Path) key.watchable();
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE && unwatch(path)) {
+                changed.add(path);
+            } else if (path.toString().endsWith(".java")) {
+                changed.add(path);
+            } else if (Files.isDirectory(path) && !isIgnored(path)) {
+                changed.add(path);
+            }
+        }
+        if (!key.reset()) unwatch(dir);
+        return overflow;
+    }
+
+    private boolean unwatch(Path dir) {
+        boolean removed = false;
+        for (Iterator<Map.Entry<Path, WatchKey>> it = watchedDirs.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Path, WatchKey> e = it.next();
+            if (e.getKey().startsWith(dir)) {
+                e.getValue().cancel();
+                it.remove();
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    private boolean isIgnored(Path dir) {
+        Path relative = root.relativize(dir);
+        if (relative.getNameCount() == 0) return false;
+        String name = relative.getFileName().toString();
+        if (name.startsWith(".")) return true;
+        if (!OUTPUT_DIRS.contains(name)) return false;
+        for (Path segment : relative) {
+            if (segment.toString().equals("src")) return false;
+        }
+        return true;
+    }
+
+    private void refresh(Set<Path> changed) {
+        try {
+            ProjectModel model;
+            if (changed == null) {
+                registerDirectories(root);
+                model = analyzer.analyze(root);
+            } else {
+                for (Path path : changed) {
+                    if (Files.isDirectory(path)) registerDirectories(path);
+                }
+                model = analyzer.reanalyze(root, changed);
+            }
+            model.computeCycles();
+            analyzer.pruneFactsCache();
+            snapshot.set(new ModelSnapshot(snapshot.get().version + 1, model));
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void registerDirectories(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (isIgnored(dir)) return FileVisitResult.SKIP_SUBTREE;
+                WatchKey key = watchedDirs.get(dir);
+                if (key == null || !key.isValid()) {
+                    watchedDirs.put(dir, dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        ModelSnapshot s = snapshot.get();
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        StringWriter body = new StringWriter();
+        JsonWriter w = new JsonWriter(body);
+        int status = 200;
+        String contentType = "application/json";
+        try {
+            switch (exchange.getRequestURI().getPath()) {
+                case "/status"   -> status(s, w);
+                case "/deps"     -> dependencies(s, query, w, false);
+                case "/rdeps"    -> dependencies(s, query, w, true);
+                case "/cycles"   -> cycles(s, query, w);
+                case "/metrics"  -> metrics(s, query, w);
+                case "/subgraph" -> {
+                    if ("graphml".equals(query.get("format"))) {
+                        contentType = "application/xml";
+                        subgraphGraphML(s, query, body);
+                    } else {
+                        subgraph(s, query, w);
+                    }
+                }
+                default -> {
+                    status = 404;
+                    w.beginObject().name("error").value("Unknown query " + exchange.getRequestURI().getPath()).endObject();
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body.getBuffer().setLength(0);
+            new JsonWriter(body).beginObject().name("error").value(e.getMessage()).endObject();
+        }
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.getResponseHeaders().set("X-Model-Version", Long.toString(s.version));
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void status(ModelSnapshot s, JsonWriter w) throws IOException {
+        w.beginObject()
+                .name("root").value(root.toString())
+                .name("version").value(s.version)
+                .name("createdAt").value(s.createdAt)
+                .name("packages").value(s.graph.size())
+                .name("packageEdges").value(s.graph.edgeCount())
+                .name("dependencies").value(s.model.getDependencyCount())
+                .name("cycles").value(s.sccMembers.size())
+                .endObject();
+    }
+
+    private void dependencies(ModelSnapshot s, Map<String, String> query, JsonWriter w, boolean reverse)
+            throws IOException {
+        String cls = query.get("class");
+        if (cls != null) {
+            ModelSnapshot.Edges edges = (reverse ? s.byTarget : s.byClass).get(cls);
+            w.beginObject().name("class").value(cls).name(reverse ? "dependents" : "dependencies").beginArray();
+            for (int i = 0; edges != null && i < edges.dependencies.size(); i++) {
+                Dependency d = edges.dependencies.get(i);
+                w.beginObject()
+                        .name("from").value(ModelSnapshot.qualified(d.getFromPkg(), d.getFrom()))
+                        .name("to").value(d.getTo())
+                        .name("type").value(d.getType().name())
+                        .name("count").value(edges.counts.get(i))
+                        .endObject();
+            }
+            w.endArray().endObject();
+            return;
+        }
+        int id = packageId(s, query);
+        PackageGraph g = s.graph;
+        w.beginObject().name("package").value(g.name(id)).name(reverse ? "dependents" : "dependencies").beginArray();
+        int from = reverse ? g.inStart(id) : g.outStart(id), to = reverse ? g.inEnd(id) : g.outEnd(id);
+        for (int e = from; e < to; e++) {
+            w.beginObject()
+                    .name("package").value(g.name(reverse ? g.inSource(e) : g.outTarget(e)))
+                    .name("weight").value(reverse ? g.inWeight(e) : g.outWeight(e))
+                    .endObject();
+        }
+        w.endArray().endObject();
+    }
+
+    private void cycles(ModelSnapshot s, Map<String, String> query, JsonWriter w) throws IOException {
+        w.beginObject().name("cycles").beginArray();
+        if (query.containsKey("pkg")) {
+            int scc = s.model.getSccId(packageId(s, query));
+            if (scc >= 0) writeCycle(s, s.sccMembers.get(scc), w);
+        } else {
+            for (int[] members : s.sccMembers) writeCycle(s, members, w);
+        }
+        w.endArray().endObject();
+    }
+
+    private void writeCycle(ModelSnapshot s, int[] members, JsonWriter w) throws IOException {
+        w.beginArray();
+        for (int v : members) w.value(s.graph.name(v));
+        w.endArray();
+    }
+
+    private void metrics(ModelSnapshot s, Map<String, String> query, JsonWriter w) throws IOException {
+        if (query.containsKey("pkg")) {
+            writeMetrics(s.metrics(), packageId(s, query), w);
+            return;
+        }
+        PackageMetrics metrics = s.metrics();
+        int limit = intParam(query, "top", metrics.size());
+        w.beginArray();
+        for (int id : metrics.topByPageRank(limit)) writeMetrics(metrics, id, w);
+        w.endArray();
+    }
+
+    private void writeMetrics(PackageMetrics m, int id, JsonWriter w) throws IOException {
+        w.beginObject()
+                .name("package").value(m.name(id))
+                .name("fanIn").value(m.getFanIn(id))
+                .name("fanOut").value(m.getFanOut(id))
+                .name("instability").value(m.getInstability(id))
+                .name("abstractness").value(m.getAbstractness(id))
+                .name("distance").value(m.getDistance(id))
+                .name("pageRank").value(m.getPageRank(id))
+                .name("betweenness").value(m.getBetweenness(id))
+                .endObject();
+    }
+
+    private BitSet reachable(ModelSnapshot s, Map<String, String> query) {
+        PackageGraph g = s.graph;
+        int depth = intParam(query, "depth", 1);
+        BitSet seen = new BitSet(g.size());
+        int start = packageId(s, query);
+        seen.set(start);
+        List<Integer> frontier = List.of(start);
+        for (int d = 0; d < depth && !frontier.isEmpty(); d++) {
+            List<Integer> next = new ArrayList<>();
+            for (int u : frontier) {
+                for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                    int v = g.outTarget(e);
+                    if (!seen.get(v)) {
+                        seen.set(v);
+                        next.add(v);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return seen;
+    }
+
+    private void subgraph(ModelSnapshot s, Map<String, String> query, JsonWriter w) throws IOException {
+        PackageGraph g = s.graph;
+        BitSet nodes = reachable(s, query);
+        w.beginObject().name("nodes").beginArray();
+        for (int v = nodes.nextSetBit(0); v >= 0; v = nodes.nextSetBit(v + 1)) w.value(g.name(v));
+        w.endArray().name("edges").beginArray();
+        for (int u = nodes.nextSetBit(0); u >= 0; u = nodes.nextSetBit(u + 1)) {
+            for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                if (!nodes.get(g.outTarget(e))) continue;
+                w.beginObject()
+                        .name("from").value(g.name(u))
+                        .name("to").value(g.name(g.outTarget(e)))
+                        .name("weight").value(g.outWeight(e))
+                        .endObject();
+            }
+        }
+        w.endArray().endObject();
+    }
+
+    private void subgraphGraphML(ModelSnapshot s, Map<String, String> query, Writer out) throws IOException {
+        PackageGraph g = s.graph;
+        BitSet nodes = reachable(s, query);
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+        out.write("  <graph id=\"G\" edgedefault=\"directed\">\n");
+        for (int v = nodes.nextSetBit(0); v >= 0; v = nodes.nextSetBit(v + 1)) {
+            out.write("    <node id=\"" + g.name(v) + "\"/>\n");
+        }
+        for (int u = nodes.nextSetBit(0); u >= 0; u = nodes.nextSetBit(u + 1)) {
+            for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                if (!nodes.get(g.outTarget(e))) continue;
+                out.write("    <edge source=\"" + g.name(u) + "\" target=\"" + g.name(g.outTarget(e)) + "\"/>\n");
+            }
+        }
+        out.write("  </graph>\n</graphml>\n");
+    }
+
+    private static int packageId(ModelSnapshot s, Map<String, String> query) {
+        String pkg = query.get("pkg");
+        if (pkg == null) throw new IllegalArgumentException("Missing parameter pkg");
+        int id = s.graph.id(pkg);
+        if (id < 0) throw new IllegalArgumentException("Unknown package " + pkg);
+        return id;
+    }
+
+    private static int intParam(Map<String, String> query, String name, int fallback) {
+        String value = query.get(name);
+        if (value == null) return fallback;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + name + " must be a number");
+        }
+    }
+
+    private static Map<String, String> parseQuery(String raw) {
+        Map<String, String> out = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return out;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            out.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return out;
+    }
+}
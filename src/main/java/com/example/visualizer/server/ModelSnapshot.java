@@ -0,0 +1,54 @@
+package com.example.visualizer.server;
+
+import com.example.visualizer.model.Dependency;
+import com.example.visualizer.model.PackageGraph;
+import com.example.visualizer.model.PackageMetrics;
+import com.example.visualizer.model.ProjectModel;
+
+import java.util.*;
+
+class ModelSnapshot {
+    final long version;
+    final long createdAt = System.currentTimeMillis();
+    final ProjectModel model;
+    final PackageGraph graph;
+    final List<int[]> sccMembers;
+    final Map<String, Edges> byClass = new HashMap<>();
+    final Map<String, Edges> byTarget = new HashMap<>();
+
+    static final class Edges {
+        final List<Dependency> dependencies = new ArrayList<>();
+        final List<Integer> counts = new ArrayList<>();
+        private final Map<String, Integer> index = new HashMap<>();
+
+        private void add(Dependency d, int times) {
+            String key = qualified(d.getFromPkg(), d.getFrom()) + '\0' + d.getTo() + '\0' + d.getType();
+            Integer i = index.putIfAbsent(key, dependencies.size());
+            if (i == null) {
+                dependencies.add(d);
+                counts.add(times);
+            } else {
+                counts.set(i, counts.get(i) + times);
+            }
+        }
+    }
+
+    ModelSnapshot(long version, ProjectModel model) {
+        this.version = version;
+        this.model = model;
+        this.graph = model.getPackageGraph();
+        this.sccMembers = model.getCycleMembers();
+        model.forEachDependency((d, times) -> {
+            byClass.computeIfAbsent(qualified(d.getFromPkg(), d.getFrom()), k -> new Edges()).add(d, times);
+            byTarget.computeIfAbsent(d.getTo(), k -> new Edges()).add(d, times);
+        });
+    }
+
+    PackageMetrics metrics() {
+        return model.getMetrics();
+    }
+
+    static String qualified(String pkg, String cls) {
+        return pkg.isEmpty() ? cls : pkg + "." + cls;
+    }
+}
@@ -1,12 +1,20 @@
 package com.example.visualizer.ui;
 
+import com.example.visualizer.analyzer.ProjectAnalyzer;
+import com.example.visualizer.cycles.CycleBreaker;
+import com.example.visualizer.diff.ArchitectureDiff;
 import com.example.visualizer.model.*;
+import com.example.visualizer.perf.Profiler;
+import com.example.visualizer.perf.Profiler.Phase;
+import com.example.visualizer.rules.RuleSet;
+import com.example.visualizer.rules.Violation;
 import com.example.visualizer.util.ExportManager;
+import javafx.concurrent.Task;
 import javafx.geometry.HPos;
 import javafx.geometry.Insets;
 import javafx.geometry.VPos;
+import javafx.scene.Node;
 import javafx.scene.Scene;
-import javafx.scene.chart.*;
 import javafx.scene.control.*;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
@@ -15,7 +23,9 @@ import javafx.scene.paint.Color;
 import javafx.scene.shape.Line;
 import javafx.scene.shape.Polygon;
 import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.Shape;
 import javafx.scene.shape.StrokeType;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.stage.Window;
@@ -26,29 +36,45 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.Callable;
 
 public class GraphView {
     private final ProjectModel model;
-    private final Map<String, Rectangle> pkgRects = new HashMap<>();
-    private final Map<String, Label>     pkgLabels = new HashMap<>();
+    private Rectangle[] pkgRects = new Rectangle[0];
+    private Label[]     pkgLabels = new Label[0];
+    private final Map<Long, Shape[]> edgeShapes = new HashMap<>();
+    private final Set<Long> violatingEdges = new HashSet<>();
+    private final Set<Long> addedEdges = new HashSet<>();
+    private final Set<Long> cutEdges = new HashSet<>();
+    private final Set<Integer> addedPackages = new HashSet<>();
     private final Path projectRoot;
+    private final ProjectAnalyzer analyzer;
+    private Pane graphPane;
+    private final List<Node> diffOverlay = new ArrayList<>();
 
     private final double width = 800, height = 600;
     private Rectangle highlightedRect = null;
+    private final Profiler profiler = Profiler.get();
+    private final Label profileLabel = new Label();
 
     private static class Delta {
         double x, y;
     }
 
     public GraphView(ProjectModel model, Path projectRoot) {
+        this(model, projectRoot, new ProjectAnalyzer());
+    }
+
+    public GraphView(ProjectModel model, Path projectRoot, ProjectAnalyzer analyzer) {
         this.model = model;
         this.projectRoot = projectRoot;
+        this.analyzer = analyzer;
         model.computePackageDependencies();
         model.computeCycles();
     }
 
     public void show(Stage stage) {
-        Pane graphPane = new Pane();
+        graphPane = new Pane();
         graphPane.setPrefSize(Double.MAX_VALUE, Double.MAX_VALUE);
 
         graphPane.setOnScroll(e -> {
@@ -74,7 +100,34 @@ public class GraphView {
         MenuItem toGraph = new MenuItem("Export to GraphML");
         exportM.getItems().addAll(toPdf, toGraph);
         fileM.getItems().add(exportM);
-        menuBar.getMenus().add(fileM);
+        Menu rulesM = new Menu("Rules");
+        MenuItem checkRules = new MenuItem("Check Rules...");
+        rulesM.getItems().add(checkRules);
+        Menu diffM = new Menu("Diff");
+        MenuItem diffDir = new MenuItem("Compare with Directory...");
+        MenuItem diffRev = new MenuItem("Compare with Git Revision...");
+        diffM.getItems().addAll(diffDir, diffRev);
+        Menu cyclesM = new Menu("Cycles");
+        MenuItem suggestCuts = new MenuItem("Suggest Cuts");
+        cyclesM.getItems().add(suggestCuts);
+        menuBar.getMenus().addAll(fileM, rulesM, diffM, cyclesM);
+
+        checkRules.setOnAction(evt -> checkRules(stage));
+        suggestCuts.setOnAction(evt -> suggestCuts());
+        diffDir.setOnAction(evt -> {
+            DirectoryChooser chooser = new DirectoryChooser();
+            chooser.setTitle("Select baseline directory");
+            File dir = chooser.showDialog(stage);
+            if (dir != null) compareWith(dir.getName(), () -> analyzer.analyze(dir.toPath()));
+        });
+        diffRev.setOnAction(evt -> {
+            TextInputDialog td = new TextInputDialog("HEAD");
+            td.setTitle("Compare with Git Revision");
+            td.setHeaderText("Baseline revision in " + projectRoot);
+            td.setContentText("Revision:");
+            td.showAndWait().ifPresent(rev ->
+                    compareWith(rev, () -> analyzer.analyzeRevision(projectRoot, rev)));
+        });
 
         toPdf.setOnAction(evt -> {
             try {
@@ -119,6 +172,12 @@ public class GraphView {
         VBox metricsPane = new VBox(10);
         metricsPane.setPadding(new Insets(10));
         buildMetricsCharts(metricsPane);
+        if (profiler.isEnabled()) {
+            profileLabel.setStyle("-fx-font-family: monospace");
+            TitledPane profilePane = new TitledPane("Analysis profile", profileLabel);
+            profilePane.setExpanded(false);
+            metricsPane.getChildren().add(profilePane);
+        }
         grid.add(metricsPane, 1, 0);
         GridPane.setHgrow(metricsPane, Priority.ALWAYS);
         GridPane.setVgrow(metricsPane, Priority.ALWAYS);
@@ -141,112 +200,84 @@ public class GraphView {
         stage.setMaximized(true);
         stage.show();
 
-        layoutPackages(graphPane);
-        drawPackageDependencies(graphPane);
+        try (Profiler.Span span = profiler.begin(Phase.LAYOUT)) {
+            layoutPackages(graphPane);
+        }
+        try (Profiler.Span span = profiler.begin(Phase.RENDER)) {
+            drawPackageDependencies(graphPane);
+        }
+        refreshProfile();
     }
 
-    private void buildMetricsCharts(VBox infoPane) {
+    private void refreshProfile() {
+        profileLabel.setText(String.join("\n", profiler.summary()));
+    }
 
-        CategoryAxis xAxis = new CategoryAxis();
-        NumberAxis   yAxis = new NumberAxis();
-        BarChart<String,Number> bar = new BarChart<>(xAxis, yAxis);
-        bar.setTitle("Coupling (outgoing vs incoming)");
-        xAxis.setLabel("Package");
-        yAxis.setLabel("Count");
-
-        XYChart.Series<String,Number> outS = new XYChart.Series<>();
-        outS.setName("Outgoing");
-        model.getOutgoingCount().forEach((pkg, c) ->
-                outS.getData().add(new XYChart.Data<>(pkg, c)));
-
-        XYChart.Series<String,Number> inS = new XYChart.Series<>();
-        inS.setName("Incoming");
-        model.getIncomingCount().forEach((pkg, c) ->
-                inS.getData().add(new XYChart.Data<>(pkg, c)));
-
-        bar.getData().addAll(outS, inS);
-        bar.setCategoryGap(10);
-        bar.setPrefHeight(250);
-        bar.setLegendVisible(true);
-        xAxis.setTickLabelsVisible(true);
-        xAxis.setTickMarkVisible(true);
-
-        PieChart pie = new PieChart();
-        pie.setTitle("Hot Spots (top 3)");
-        model.getOutgoingCount().entrySet().stream()
-                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
-                .limit(3)
-                .forEach(e ->
-                        pie.getData().add(
-                                new PieChart.Data(e.getKey(),
-                                        e.getValue().doubleValue())));
-        pie.setPrefHeight(200);
-        pie.setLegendVisible(true);
-        pie.setLabelsVisible(true);
-        Label depth = new Label("Max depth: " + model.getMaxDependencyDepth());
-        infoPane.getChildren().addAll(bar, pie, depth);
+    private void buildMetricsCharts(VBox infoPane) {
+        MetricsPanel panel = new MetricsPanel(model);
+        VBox.setVgrow(panel.getNode(), Priority.ALWAYS);
+        infoPane.getChildren().add(panel.getNode());
+        panel.load(this::refreshProfile);
     }
 
     private void layoutPackages(Pane pane) {
-        List<String> pkgs = new ArrayList<>(model.getPackageNames());
+        PackageGraph graph = model.getPackageGraph();
+        int count = graph.size();
+        pkgRects = new Rectangle[count];
+        pkgLabels = new Label[count];
+        List<Node> nodes = new ArrayList<>();
         double cx = width / 2,
                 cy = height / 2,
                 r  = Math.min(width, height) / 2 - 50;
 
-        for (int i = 0; i < pkgs.size(); i++) {
-            double angle = 2 * Math.PI * i / pkgs.size();
+        for (int i = 0; i < count; i++) {
+            double angle = 2 * Math.PI * i / count;
             double x = cx + r * Math.cos(angle) - 70;
             double y = cy + r * Math.sin(angle) - 15;
 
-            String pkg = pkgs.get(i);
+            String pkg = graph.name(i);
+            PackageNode node = model.getPackage(pkg);
 
             Rectangle rect = new Rectangle(x, y, 140, 30);
             rect.setFill(Color.LIGHTBLUE);
 
-            Label lbl = new Label(pkg + " (" + model.getClassCount(pkg) + ")");
+            Label lbl = new Label(pkg + " (" + node.getClasses().size() + ")");
             lbl.setLayoutX(x + 5);
             lbl.setLayoutY(y + 5);
 
-            pane.getChildren().addAll(rect, lbl);
+            nodes.add(rect);
+            nodes.add(lbl);
 
             double classY = y + 30;
-            for (ClassNode cls : model.getPackages().stream()
-                    .filter(pn -> pn.getName().equals(pkg))
-                    .findAny()
-                    .map(PackageNode::getClasses)
-                    .orElse(Collections.emptyList())) {
+            for (ClassNode cls : node.getClasses()) {
                 Label clsLabel = new Label("- " + cls.getName()
                         + (cls.isInterface() ? " (i)" : ""));
                 clsLabel.setLayoutX(x + 10);
                 clsLabel.setLayoutY(classY);
-                pane.getChildren().add(clsLabel);
+                nodes.add(clsLabel);
                 classY += 15;
             }
-            pkgRects.put(pkg, rect);
-            pkgLabels.put(pkg, lbl);
+            pkgRects[i] = rect;
+            pkgLabels[i] = lbl;
             rect.setOnMouseClicked(e -> showPackageInfo(pkg));
         }
+        pane.getChildren().addAll(nodes);
     }
 
     private void drawPackageDependencies(Pane pane) {
-        for (Map.Entry<String, Set<String>> entry
-                : model.getPackageDependencies().entrySet()) {
-            String fromPkg = entry.getKey();
-            Rectangle from = pkgRects.get(fromPkg);
-            if (from == null) continue;
-
-            for (String toPkg : entry.getValue()) {
-                if (toPkg.equals(fromPkg)) continue;
-                Rectangle to = pkgRects.get(toPkg);
-                if (to == null) continue;
-
-                Color c = colorForEdge(fromPkg, toPkg);
-                drawArrow(pane, from, to, c);
+        PackageGraph graph = model.getPackageGraph();
+        List<Node> nodes = new ArrayList<>();
+        for (int from = 0; from < graph.size(); from++) {
+            for (int e = graph.outStart(from); e < graph.outEnd(from); e++) {
+                int to = graph.outTarget(e);
+                Color c = colorForEdge(from, to);
+                edgeShapes.put(edgeKey(from, to), drawArrow(nodes, pkgRects[from], pkgRects[to], c));
             }
         }
+        pane.getChildren().addAll(nodes);
     }
 
-    private void drawArrow(Pane pane, Rectangle a, Rectangle b, Color color) {
+    private Shape[] drawArrow(List<Node> nodes, Rectangle a, Rectangle b, Color color) {
         double sx = a.getX() + a.getWidth()  / 2,
                 sy = a.getY() + a.getHeight() / 2;
         double ex = b.getX() + b.getWidth()  / 2,
@@ -255,11 +286,12 @@ public class GraphView {
         Line line = new Line(sx, sy, ex, ey);
         line.setStroke(color);
         line.setStrokeWidth(2);
-        pane.getChildren().add(line);
+        nodes.add(line);
 
         Polygon head = createArrowHead(sx, sy, ex, ey);
         head.setFill(color);
-        pane.getChildren().add(head);
+        nodes.add(head);
+        return new Shape[]{line, head};
     }
 
     private Polygon createArrowHead(double sx, double sy,
@@ -273,11 +305,202 @@ public class GraphView {
         return new Polygon(ex, ey, x1, y1, x2, y2);
     }
 
-    private Color colorForEdge(String f, String t) {
-        for (Set<String> cyc : model.getCycles()) {
-            if (cyc.contains(f) && cyc.contains(t)) return Color.RED;
+    private Color colorForEdge(int f, int t) {
+        return model.inSameCycle(f, t) ? Color.RED : Color.GRAY;
+    }
+
+    private long edgeKey(int from, int to) {
+        return (long) from * pkgRects.length + to;
+    }
+
+    private void replaceOverlay(Set<Long> overlay, Set<Long> edges) {
+        Set<Long> touched = new HashSet<>(overlay);
+        touched.addAll(edges);
+        overlay.clear();
+        overlay.addAll(edges);
+        touched.forEach(this::styleEdge);
+    }
+
+    private void styleEdge(long key) {
+        Shape[] shapes = edgeShapes.get(key);
+        if (shapes == null) return;
+        boolean cut = cutEdges.contains(key);
+        Color color = violatingEdges.contains(key) ? Color.DARKORANGE
+                : addedEdges.contains(key) ? Color.LIMEGREEN
+                : cut ? Color.MAGENTA
+                : null;
+        boolean highlighted = color != null;
+        if (!highlighted) color = colorForEdge((int) (key / pkgRects.length), (int) (key % pkgRects.length));
+        shapes[0].setStroke(color);
+        shapes[0].setStrokeWidth(highlighted ? 3 : 2);
+        if (cut) shapes[0].getStrokeDashArray().setAll(8.0, 4.0);
+        else shapes[0].getStrokeDashArray().clear();
+        shapes[1].setFill(color);
+        if (highlighted) {
+            shapes[0].toFront();
+            shapes[1].toFront();
+        }
+    }
+
+    private void checkRules(Stage owner) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Open architecture rules");
+        File file = chooser.showOpenDialog(owner);
+        if (file == null) return;
+        List<Violation> violations;
+        try {
+            violations = RuleSet.load(file.toPath()).check(model);
+        } catch (IOException | IllegalArgumentException ex) {
+            Alert err = new Alert(Alert.AlertType.ERROR, ex.getMessage());
+            err.setTitle("Invalid Rules");
+            err.setHeaderText(null);
+            err.showAndWait();
+            return;
         }
-        return Color.GRAY;
+        highlightViolations(violations);
+        showViolations(file.getName(), violations);
+    }
+
+    private void highlightViolations(List<Violation> violations) {
+        Set<Long> edges = new HashSet<>();
+        for (Violation v : violations) {
+            for (Violation.Link link : v.getChain()) {
+                edges.add(edgeKey(link.getFromId(), link.getToId()));
+            }
+        }
+        replaceOverlay(violatingEdges, edges);
+    }
+
+    private void compareWith(String baseline, Callable<ProjectModel> analysis) {
+        Task<ArchitectureDiff> task = new Task<>() {
+            @Override
+            protected ArchitectureDiff call() throws Exception {
+                try (ProjectModel before = analysis.call()) {
+                    before.computeCycles();
+                    return ArchitectureDiff.compute(before, model);
+                }
+            }
+        };
+        task.setOnSucceeded(e -> showDiff(baseline, task.getValue()));
+        task.setOnFailed(e -> {
+            Alert err = new Alert(Alert.AlertType.ERROR, String.valueOf(task.getException().getMessage()));
+            err.setTitle("Diff Failed");
+            err.setHeaderText(null);
+            err.showAndWait();
+        });
+        Thread worker = new Thread(task, "architecture-diff");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void showDiff(String baseline, ArchitectureDiff diff) {
+        graphPane.getChildren().removeAll(diffOverlay);
+        diffOverlay.clear();
+        addedPackages.forEach(id -> pkgRects[id].setFill(Color.LIGHTBLUE));
+        addedPackages.clear();
+
+        Set<Long> edges = new HashSet<>();
+        for (ArchitectureDiff.EdgeChange e : diff.getAddedEdges()) {
+            int from = model.getPackageId(e.getFrom()), to = model.getPackageId(e.getTo());
+            if (from >= 0 && to >= 0) edges.add(edgeKey(from, to));
+        }
+        replaceOverlay(addedEdges, edges);
+        for (ArchitectureDiff.EdgeChange e : diff.getRemovedEdges()) {
+            int from = model.getPackageId(e.getFrom()), to = model.getPackageId(e.getTo());
+            if (from < 0 || to < 0) continue;
+            Shape[] shapes = drawArrow(diffOverlay, pkgRects[from], pkgRects[to], Color.STEELBLUE);
+            shapes[0].getStrokeDashArray().addAll(6.0, 6.0);
+        }
+        for (String pkg : diff.getAddedPackages()) {
+            int id = model.getPackageId(pkg);
+            if (id < 0) continue;
+            pkgRects[id].setFill(Color.PALEGREEN);
+            addedPackages.add(id);
+        }
+        graphPane.getChildren().addAll(diffOverlay);
+
+        ListView<String> list = new ListView<>();
+        list.getItems().setAll(diff.summary());
+        Stage st = new Stage();
+        st.setScene(new Scene(new BorderPane(list), 600, 400));
+        st.setTitle("Architecture diff against " + baseline);
+        st.show();
+    }
+
+    private void suggestCuts() {
+        Task<CycleBreaker> task = new Task<>() {
+            @Override
+            protected CycleBreaker call() {
+                return CycleBreaker.compute(model, true);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            refreshProfile();
+            showCuts(task.getValue());
+        });
+        task.setOnFailed(e -> {
+            Alert err = new Alert(Alert.AlertType.ERROR, String.valueOf(task.getException().getMessage()));
+            err.setTitle("Cycle Analysis Failed");
+            err.setHeaderText(null);
+            err.showAndWait();
+        });
+        Thread worker = new Thread(task, "cycle-cuts");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void showCuts(CycleBreaker cuts) {
+        Set<Long> edges = new HashSet<>();
+        TreeItem<String> root = new TreeItem<>(cuts.getComponents().size() + " cycles");
+        root.setExpanded(true);
+        for (CycleBreaker.Component c : cuts.getComponents()) {
+            TreeItem<String> item = new TreeItem<>(c.getPackages().size() + " packages: cut "
+                    + c.getCuts().size() + " edges, weight " + c.getCutWeight() + " of " + c.getWeight());
+            for (CycleBreaker.Cut cut : c.getCuts()) {
+                TreeItem<String> cutItem = new TreeItem<>(cut.getFrom() + " -> " + cut.getTo()
+                        + " (" + cut.getWeight() + ")"
+                        + (cut.getUntangles() < 0 ? "" : "  untangles " + cut.getUntangles()
+                        + ", largest cycle after " + cut.getLargestAfter()));
+                for (int i = 0; i < cut.getDependencies().size(); i++) {
+                    Dependency d = cut.getDependencies().get(i);
+                    cutItem.getChildren().add(new TreeItem<>(d.getFromPkg() + "." + d.getFrom()
+                            + " -> " + d.getTo() + " (" + d.getType() + ") x" + cut.getCounts().get(i)));
+                }
+                item.getChildren().add(cutItem);
+                edges.add(edgeKey(cut.getFromId(), cut.getToId()));
+            }
+            root.getChildren().add(item);
+        }
+        replaceOverlay(cutEdges, edges);
+        TreeView<String> tree = new TreeView<>(root);
+        Stage st = new Stage();
+        st.setScene(new Scene(new BorderPane(tree), 700, 500));
+        st.setTitle("Suggested cycle cuts");
+        st.show();
+    }
+
+    private void showViolations(String source, List<Violation> violations) {
+        TreeItem<String> root = new TreeItem<>(violations.size() + " violations");
+        root.setExpanded(true);
+        for (Violation v : violations) {
+            TreeItem<String> item = new TreeItem<>(v.getMessage() + "   [" + v.getRule() + "]");
+            for (Violation.Link link : v.getChain()) {
+                TreeItem<String> linkItem = new TreeItem<>(link.getFromPkg() + " -> "
+                        + link.getToPkg() + " (" + link.getWeight() + ")");
+                for (int i = 0; i < link.getExamples().size(); i++) {
+                    Dependency d = link.getExamples().get(i);
+                    linkItem.getChildren().add(new TreeItem<>(d.getFromPkg() + "." + d.getFrom()
+                            + " -> " + d.getTo() + " (" + d.getType() + ") x" + link.getCounts().get(i)));
+                }
+                item.getChildren().add(linkItem);
+            }
+            root.getChildren().add(item);
+        }
+        TreeView<String> tree = new TreeView<>(root);
+        Stage st = new Stage();
+        st.setScene(new Scene(new BorderPane(tree), 700, 500));
+        st.setTitle("Rule violations: " + source);
+        st.show();
     }
 
     private void showPackageInfo(String pkg) {
@@ -287,11 +510,11 @@ public class GraphView {
 
         box.getChildren().add(new Label("Package: " + pkg));
         box.getChildren().add(new Label("Classes:"));
-        model.getPackages().stream()
-                .filter(p -> p.getName().equals(pkg))
-                .findAny()
-                .ifPresent(p -> p.getClasses().forEach(c ->
-                        box.getChildren().add(new Label(" - " + c.getName()))));
+        PackageNode node = model.getPackage(pkg);
+        if (node != null) {
+            node.getClasses().forEach(c ->
+                    box.getChildren().add(new Label(" - " + c.getName())));
+        }
 
         st.setScene(new Scene(box, 300, 400));
         st.setTitle("Details: " + pkg);
@@ -480,8 +703,9 @@ public class GraphView {
                 ? fullName.substring(0, fullName.lastIndexOf('.'))
                 : fullName;
 
-        Rectangle rect = pkgRects.get(pkg);
-        if (rect == null) return;
+        int id = model.getPackageId(pkg);
+        if (id < 0 || id >= pkgRects.length) return;
+        Rectangle rect = pkgRects[id];
 
         if (highlightedRect != null) {
             highlightedRect.setStrokeWidth(0);
@@ -490,8 +714,7 @@ public class GraphView {
         rect.setStroke(Color.ORANGE);
         rect.setStrokeWidth(4);
 
-        Label lbl = pkgLabels.get(pkg);
-        if (lbl != null) lbl.toFront();
+        pkgLabels[id].toFront();
         highlightedRect = rect;
     }
 }
@@ -0,0 +1,131 @@
+package com.example.visualizer.ui;
+
+import com.example.visualizer.model.ProjectModel;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.concurrent.Task;
+import javafx.scene.chart.*;
+import javafx.scene.control.*;
+import javafx.scene.layout.VBox;
+
+import java.util.List;
+import java.util.function.Function;
+
+class MetricsPanel {
+    private static final int TOP_N = 15;
+    private static final int HOT_SPOTS = 3;
+
+    private final ProjectModel model;
+    private final CategoryAxis couplingAxis = new CategoryAxis();
+    private final BarChart<String, Number> coupling = new BarChart<>(couplingAxis, new NumberAxis());
+    private final PieChart pie = new PieChart();
+    private final Label depth = new Label("Max depth: ...");
+    private final CategoryAxis histogramAxis = new CategoryAxis();
+    private final BarChart<String, Number> histogram = new BarChart<>(histogramAxis, new NumberAxis());
+    private final TableView<MetricsSummary.Row> table = new TableView<>();
+    private final TabPane tabs = new TabPane();
+
+    MetricsPanel(ProjectModel model) {
+        this.model = model;
+
+        coupling.setTitle("Coupling (outgoing vs incoming, top " + TOP_N + ")");
+        couplingAxis.setLabel("Package");
+        coupling.getYAxis().setLabel("Count");
+        coupling.setCategoryGap(10);
+        coupling.setPrefHeight(250);
+        coupling.setAnimated(false);
+
+        pie.setTitle("Hot Spots (PageRank, top " + HOT_SPOTS + ")");
+        pie.setPrefHeight(200);
+        pie.setLegendVisible(true);
+        pie.setLabelsVisible(true);
+        pie.setAnimated(false);
+
+        histogram.setTitle("Degree distribution");
+        histogramAxis.setLabel("Dependencies");
+        histogram.getYAxis().setLabel("Packages");
+        histogram.setAnimated(false);
+
+        table.setPlaceholder(new Label("Computing metrics..."));
+        table.getColumns().add(column("Package", r -> r.name));
+        table.getColumns().add(column("Classes", r -> r.classes));
+        table.getColumns().add(column("Out", r -> r.outgoing));
+        table.getColumns().add(column("In", r -> r.incoming));
+        table.getColumns().add(column("I", r -> round(r.instability)));
+        table.getColumns().add(column("A", r -> round(r.abstractness)));
+        table.getColumns().add(column("D", r -> round(r.distance)));
+        table.getColumns().add(column("PageRank", r -> r.pageRank));
+        table.getColumns().add(column("Betweenness", r -> r.betweenness));
+
+        tabs.setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
+        tabs.getTabs().addAll(
+                new Tab("Charts", new VBox(10, coupling, pie, depth)),
+                new Tab("Packages", table),
+                new Tab("Distribution", histogram));
+    }
+
+    TabPane getNode() {
+        return tabs;
+    }
+
+    void load(Runnable whenDone) {
+        Task<MetricsSummary> task = new Task<>() {
+            @Override
+            protected MetricsSummary call() {
+                return MetricsSummary.of(model, TOP_N, HOT_SPOTS);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            show(task.getValue());
+            whenDone.run();
+        });
+        task.setOnFailed(e -> {
+            task.getException().printStackTrace();
+            table.setPlaceholder(new Label("Metrics failed: " + task.getException().getMessage()));
+            whenDone.run();
+        });
+        Thread worker = new Thread(task, "metrics-summary");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void show(MetricsSummary s) {
+        XYChart.Series<String, Number> outS = new XYChart.Series<>();
+        outS.setName("Outgoing");
+        XYChart.Series<String, Number> inS = new XYChart.Series<>();
+        inS.setName("Incoming");
+        for (int i = 0; i < s.couplingLabels.size(); i++) {
+            outS.getData().add(new XYChart.Data<>(s.couplingLabels.get(i), s.couplingOut.get(i)));
+            inS.getData().add(new XYChart.Data<>(s.couplingLabels.get(i), s.couplingIn.get(i)));
+        }
+        coupling.getData().setAll(List.of(outS, inS));
+
+        pie.getData().clear();
+        for (int i = 0; i < s.hotSpotLabels.size(); i++) {
+            pie.getData().add(new PieChart.Data(s.hotSpotLabels.get(i), s.hotSpotValues.get(i)));
+        }
+        depth.setText("Max depth: " + s.maxDepth);
+
+        XYChart.Series<String, Number> outH = new XYChart.Series<>();
+        outH.setName("Outgoing");
+        XYChart.Series<String, Number> inH = new XYChart.Series<>();
+        inH.setName("Incoming");
+        for (int b = 0; b < s.histogramBins.size(); b++) {
+            outH.getData().add(new XYChart.Data<>(s.histogramBins.get(b), s.outHistogram[b]));
+            inH.getData().add(new XYChart.Data<>(s.histogramBins.get(b), s.inHistogram[b]));
+        }
+        histogram.getData().setAll(List.of(outH, inH));
+
+        table.getItems().setAll(s.rows);
+    }
+
+    private static <T> TableColumn<MetricsSummary.Row, T> column(
+            String title, Function<MetricsSummary.Row, T> value) {
+        TableColumn<MetricsSummary.Row, T> col = new TableColumn<>(title);
+        col.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(value.apply(c.getValue())));
+        return col;
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 1000.0) / 1000.0;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.visualizer.ui;
+
+import com.example.visualizer.model.PackageMetrics;
+import com.example.visualizer.model.ProjectModel;
+
+import java.util.*;
+
+final class MetricsSummary {
+    static final class Row {
+        final String name;
+        final int classes, outgoing, incoming;
+        final double instability, abstractness, distance, pageRank, betweenness;
+
+        Row(PackageMetrics m, int id, int outgoing, int incoming) {
+            this.name = m.name(id);
+            this.classes = m.getGraph().classCount(id);
+            this.outgoing = outgoing;
+            this.incoming = incoming;
+            this.instability = m.getInstability(id);
+            this.abstractness = m.getAbstractness(id);
+            this.distance = m.getDistance(id);
+            this.pageRank = m.getPageRank(id);
+            this.betweenness = m.getBetweenness(id);
+        }
+    }
+
+    final List<String> couplingLabels = new ArrayList<>();
+    final List<Double> couplingOut = new ArrayList<>();
+    final List<Double> couplingIn = new ArrayList<>();
+    final List<String> hotSpotLabels = new ArrayList<>();
+    final List<Double> hotSpotValues = new ArrayList<>();
+    final List<String> histogramBins = new ArrayList<>();
+    final int[] outHistogram, inHistogram;
+    final List<Row> rows = new ArrayList<>();
+    final int maxDepth;
+
+    private MetricsSummary(ProjectModel model, int topN, int hotSpots) {
+        PackageMetrics m = model.getMetrics();
+        int n = m.size();
+        int[] outgoing = new int[n], incoming = new int[n];
+        int maxDegree = 0;
+        for (int id = 0; id < n; id++) {
+            outgoing[id] = m.getFanOut(id);
+            incoming[id] = m.getFanIn(id);
+            maxDegree = Math.max(maxDegree, Math.max(outgoing[id], incoming[id]));
+            rows.add(new Row(m, id, outgoing[id], incoming[id]));
+        }
+
+        Integer[] byCoupling = new Integer[n];
+        for (int id = 0; id < n; id++) byCoupling[id] = id;
+        Arrays.sort(byCoupling, (a, b) ->
+                Integer.compare(outgoing[b] + incoming[b], outgoing[a] + incoming[a]));
+        int othersOut = 0, othersIn = 0;
+        for (int i = 0; i < n; i++) {
+            int id = byCoupling[i];
+            if (i < topN) {
+                couplingLabels.add(m.name(id));
+                couplingOut.add((double) outgoing[id]);
+                couplingIn.add((double) incoming[id]);
+            } else {
+                othersOut += outgoing[id];
+                othersIn += incoming[id];
+            }
+        }
+        if (n > topN) {
+            int others = n - topN;
+            couplingLabels.add("(mean of " + others + " others)");
+            couplingOut.add((double) othersOut / others);
+            couplingIn.add((double) othersIn / others);
+        }
+
+        for (int id : m.topByPageRank(hotSpots)) {
+            hotSpotLabels.add(m.name(id));
+            hotSpotValues.add(m.getPageRank(id));
+        }
+
+        int bins = bin(maxDegree) + 1;
+        outHistogram = new int[bins];
+        inHistogram = new int[bins];
+        for (int id = 0; id < n; id++) {
+            outHistogram[bin(outgoing[id])]++;
+            inHistogram[bin(incoming[id])]++;
+        }
+        for (int b = 0; b < bins; b++) {
+            int lo = b == 0 ? 0 : 1 << (b - 1), hi = b == 0 ? 0 : (1 << b) - 1;
+            histogramBins.add(lo == hi ? Integer.toString(lo) : lo + "-" + hi);
+        }
+        maxDepth = model.getMaxDependencyDepth();
+    }
+
+    static MetricsSummary of(ProjectModel model, int topN, int hotSpots) {
+        return new MetricsSummary(model, topN, hotSpots);
+    }
+
+    private static int bin(int degree) {
+        return degree == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(degree);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.visualizer.analyzer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectAnalyzerTest {
+    @Test
+    void blobIdMatchesGitHashObject() {
+        assertEquals("ce013625030ba8dba906f756967f9e9ca394464a",
+                ProjectAnalyzer.blobId("hello\n".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("e69de29bb2d1d6434b8b29ae775ad8c2e48c5391", ProjectAnalyzer.blobId(new byte[0]));
+    }
+}
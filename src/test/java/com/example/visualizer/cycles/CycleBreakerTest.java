@@ -0,0 +1,76 @@
+package com.example.visualizer.cycles;
+
+import com.example.visualizer.model.Dependency;
+import com.example.visualizer.model.ProjectModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CycleBreakerTest {
+    private static void depend(ProjectModel model, String from, String to, int times) {
+        for (int i = 0; i < times; i++) {
+            model.addDependency(from, "C", to, to + ".C", Dependency.Type.METHOD_CALL);
+        }
+    }
+
+    private static ProjectModel chainWithBackEdges() {
+        ProjectModel model = new ProjectModel();
+        for (int i = 0; i < 10; i++) model.addClass("p" + i, "C", false);
+        for (int i = 0; i < 9; i++) depend(model, "p" + i, "p" + (i + 1), 2);
+        depend(model, "p9", "p0", 1);
+        depend(model, "p5", "p2", 1);
+        model.computePackageDependencies();
+        model.computeCycles();
+        return model;
+    }
+
+    @Test
+    void cutsTheLightEdgeOfATwoCycle() {
+        ProjectModel model = new ProjectModel();
+        model.addClass("a", "A", false);
+        model.addClass("b", "B", false);
+        depend(model, "a", "b", 3);
+        depend(model, "b", "a", 1);
+        model.computePackageDependencies();
+        model.computeCycles();
+
+        CycleBreaker.Component c = CycleBreaker.compute(model, false).getComponents().get(0);
+        assertEquals(1, c.getCuts().size());
+        CycleBreaker.Cut cut = c.getCuts().get(0);
+        assertEquals("b", cut.getFrom());
+        assertEquals("a", cut.getTo());
+        assertEquals(List.of(1), cut.getCounts());
+    }
+
+    @Test
+    void findsMinimalCutsWithAndWithoutRefinement() {
+        ProjectModel model = chainWithBackEdges();
+        for (boolean refine : new boolean[]{false, true}) {
+            List<CycleBreaker.Component> components = CycleBreaker.compute(model, refine).getComponents();
+            assertEquals(1, components.size());
+            CycleBreaker.Component c = components.get(0);
+            assertEquals(10, c.getPackages().size());
+            assertEquals(2, c.getCutWeight(), "refine=" + refine);
+
+            Set<String> cuts = new HashSet<>();
+            for (CycleBreaker.Cut cut : c.getCuts()) {
+                cuts.add(cut.getFrom() + "->" + cut.getTo());
+                assertTrue(cut.getUntangles() >= 2, "every cut must be needed");
+                assertEquals(1, cut.getDependencies().size());
+            }
+            assertEquals(Set.of("p9->p0", "p5->p2"), cuts);
+            assertEquals(1, c.getCuts().get(c.getCuts().size() - 1).getLargestAfter());
+        }
+    }
+
+    @Test
+    void ranksTheCutThatUntanglesMostFirst() {
+        CycleBreaker.Component c = CycleBreaker.compute(chainWithBackEdges(), false).getComponents().get(0);
+        CycleBreaker.Cut first = c.getCuts().get(0);
+        assertEquals("p9", first.getFrom());
+        assertEquals(10, first.getUntangles());
+        assertEquals(4, first.getLargestAfter());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.visualizer.diff;
+
+import com.example.visualizer.model.Dependency;
+import com.example.visualizer.model.ProjectModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchitectureDiffTest {
+    private static void depend(ProjectModel model, String from, String to, int times) {
+        for (int i = 0; i < times; i++) {
+            model.addDependency(from, from.toUpperCase(), to, to + "." + to.toUpperCase(), Dependency.Type.METHOD_CALL);
+        }
+    }
+
+    private static ProjectModel before() {
+        ProjectModel model = new ProjectModel();
+        for (String p : List.of("a", "b", "c", "e")) model.addClass(p, p.toUpperCase(), false);
+        depend(model, "a", "b", 1);
+        depend(model, "b", "c", 1);
+        depend(model, "c", "b", 1);
+        model.computePackageDependencies();
+        return model;
+    }
+
+    private static ProjectModel after() {
+        ProjectModel model = new ProjectModel();
+        for (String p : List.of("a", "b", "c", "e")) model.addClass(p, p.toUpperCase(), false);
+        model.addClass("d", "D", true);
+        model.addClass("e", "I", true);
+        depend(model, "a", "b", 2);
+        depend(model, "b", "c", 1);
+        depend(model, "c", "a", 1);
+        depend(model, "a", "d", 1);
+        model.computePackageDependencies();
+        return model;
+    }
+
+    private static Set<String> edges(List<ArchitectureDiff.EdgeChange> changes) {
+        return changes.stream()
+                .map(e -> e.getFrom() + "->" + e.getTo() + " " + e.getBefore() + "/" + e.getAfter())
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    void reportsPackageAndEdgeDeltas() {
+        ArchitectureDiff diff = ArchitectureDiff.compute(before(), after());
+        assertEquals(List.of("d"), diff.getAddedPackages());
+        assertEquals(Set.of("a->d 0/1", "c->a 0/1"), edges(diff.getAddedEdges()));
+        assertEquals(Set.of("c->b 1/0"), edges(diff.getRemovedEdges()));
+        assertEquals(Set.of("a->b 1/2"), edges(diff.getChangedEdges()));
+    }
+
+    @Test
+    void reportsGrownCycle() {
+        ArchitectureDiff diff = ArchitectureDiff.compute(before(), after());
+        assertEquals(1, diff.getCycleChanges().size());
+        ArchitectureDiff.CycleChange change = diff.getCycleChanges().get(0);
+        assertEquals(ArchitectureDiff.CycleChange.Kind.GROWN, change.getKind());
+        assertEquals(Set.of("b", "c"), change.getBefore());
+        assertEquals(Set.of("a", "b", "c"), change.getAfter());
+
+        ArchitectureDiff reverse = ArchitectureDiff.compute(after(), before());
+        assertEquals(ArchitectureDiff.CycleChange.Kind.SHRUNK, reverse.getCycleChanges().get(0).getKind());
+    }
+
+    @Test
+    void reportsDegreeAndAbstractnessChanges() {
+        ArchitectureDiff diff = ArchitectureDiff.compute(before(), after());
+        Map<String, ArchitectureDiff.MetricChange> byPackage = new HashMap<>();
+        for (ArchitectureDiff.MetricChange m : diff.getMetricChanges()) byPackage.put(m.getPackage(), m);
+        assertEquals(Set.of("a", "b", "e"), byPackage.keySet());
+
+        ArchitectureDiff.MetricChange a = byPackage.get("a");
+        assertEquals(0, a.getFanInBefore());
+        assertEquals(1, a.getFanInAfter());
+        assertEquals(1, a.getFanOutBefore());
+        assertEquals(2, a.getFanOutAfter());
+        assertEquals(2, byPackage.get("b").getFanInBefore());
+        assertEquals(1, byPackage.get("b").getFanInAfter());
+
+        ArchitectureDiff.MetricChange e = byPackage.get("e");
+        assertEquals(0.0, e.getAbstractnessBefore(), 1e-12);
+        assertEquals(0.5, e.getAbstractnessAfter(), 1e-12);
+        assertEquals(1.0, e.getDistanceBefore(), 1e-12);
+        assertEquals(0.5, e.getDistanceAfter(), 1e-12);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.visualizer.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencySpillTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void mergesRunsInOrderAndSumsDuplicates() throws IOException {
+        Map<String, Integer> expected = new TreeMap<>();
+        try (DependencySpill spill = new DependencySpill(dir, 1)) {
+            for (int i = 0; i < 300; i++) {
+                String from = "p" + (i % 7), to = "q" + (i % 5);
+                spill.add(new Dependency(from, "A", to, to + ".B", Dependency.Type.METHOD_CALL));
+                expected.merge(from + "->" + to, 1, Integer::sum);
+            }
+            assertEquals(300, spill.size());
+            assertTrue(spill.getRunCount() < 64, "runs should be compacted");
+
+            Map<String, Integer> actual = new LinkedHashMap<>();
+            spill.forEach((d, times) -> actual.merge(d.getFromPkg() + "->" + d.getToPkg(), times, Integer::sum));
+            assertEquals(expected, actual);
+            assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(0, files.count(), "close should delete run files");
+        }
+    }
+
+    @Test
+    void bufferedDependenciesAreVisibleWithoutRuns() {
+        try (DependencySpill spill = new DependencySpill(dir, Long.MAX_VALUE)) {
+            spill.add(new Dependency("a", "A", "b", "b.B", Dependency.Type.INHERITANCE));
+            spill.add(new Dependency("a", "A", "b", "b.B", Dependency.Type.INHERITANCE));
+            List<Integer> counts = new ArrayList<>();
+            spill.forEach((d, times) -> counts.add(times));
+            assertEquals(List.of(2), counts);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.visualizer.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackageMetricsTest {
+    private static void depend(ProjectModel model, String from, String to, int times) {
+        for (int i = 0; i < times; i++) {
+            model.addDependency(from, "C", to, to + ".C", Dependency.Type.METHOD_CALL);
+        }
+    }
+
+    private static ProjectModel model(String... packages) {
+        ProjectModel model = new ProjectModel();
+        for (String p : packages) model.addClass(p, "C", false);
+        return model;
+    }
+
+    private static double betweenness(ProjectModel model, String pkg) {
+        return model.getMetrics().getBetweenness(model.getPackageId(pkg));
+    }
+
+    @Test
+    void pageRankSumsToOneAndSpreadsDanglingRank() {
+        ProjectModel model = model("a", "b");
+        depend(model, "a", "b", 1);
+        model.computePackageDependencies();
+        PackageMetrics m = model.getMetrics();
+        double a = m.getPageRank(model.getPackageId("a")), b = m.getPageRank(model.getPackageId("b"));
+        assertEquals(1.0, a + b, 1e-9);
+        assertEquals(0.5 / 1.425, a, 1e-6);
+        assertEquals(1.0 - 0.5 / 1.425, b, 1e-6);
+    }
+
+    @Test
+    void pageRankFollowsDependencyWeights() {
+        ProjectModel model = model("a", "b", "c", "d");
+        depend(model, "a", "b", 3);
+        depend(model, "a", "c", 1);
+        depend(model, "b", "a", 1);
+        model.computePackageDependencies();
+        PackageMetrics m = model.getMetrics();
+        double sum = 0.0;
+        for (int v = 0; v < m.size(); v++) sum += m.getPageRank(v);
+        assertEquals(1.0, sum, 1e-9);
+        double b = m.getPageRank(model.getPackageId("b")), c = m.getPageRank(model.getPackageId("c"));
+        double base = m.getPageRank(model.getPackageId("d"));
+        assertEquals(3.0 * (c - base), b - base, 1e-6);
+        assertEquals("a", m.name(m.topByPageRank(1)[0]));
+    }
+
+    @Test
+    void betweennessOfChainAndStar() {
+        ProjectModel chain = model("a", "b", "c");
+        depend(chain, "a", "b", 1);
+        depend(chain, "b", "c", 1);
+        chain.computePackageDependencies();
+        assertEquals(0.0, betweenness(chain, "a"), 1e-12);
+        assertEquals(1.0, betweenness(chain, "b"), 1e-12);
+        assertEquals(0.0, betweenness(chain, "c"), 1e-12);
+
+        ProjectModel star = model("hub", "in1", "in2", "out1", "out2", "out3");
+        for (String in : new String[]{"in1", "in2"}) depend(star, in, "hub", 1);
+        for (String out : new String[]{"out1", "out2", "out3"}) depend(star, "hub", out, 1);
+        star.computePackageDependencies();
+        assertEquals(6.0, betweenness(star, "hub"), 1e-12);
+        assertEquals(0.0, betweenness(star, "in1"), 1e-12);
+        assertEquals(0.0, betweenness(star, "out3"), 1e-12);
+        assertFalse(star.getMetrics().isBetweennessSampled());
+    }
+
+    @Test
+    void betweennessCountsShortestPathsWithDependencyMultiplicity() {
+        ProjectModel model = model("a", "b", "c", "d");
+        depend(model, "a", "b", 2);
+        depend(model, "a", "c", 1);
+        depend(model, "b", "d", 1);
+        depend(model, "c", "d", 1);
+        model.computePackageDependencies();
+        assertEquals(2.0 / 3.0, betweenness(model, "b"), 1e-12);
+        assertEquals(1.0 / 3.0, betweenness(model, "c"), 1e-12);
+    }
+
+    @Test
+    void sampledBetweennessIsScaledToTheFullGraph() {
+        int leaves = 1000;
+        ProjectModel model = new ProjectModel();
+        model.addClass("hub", "C", false);
+        for (int i = 0; i < leaves; i++) {
+            model.addClass("in" + i, "C", false);
+            model.addClass("out" + i, "C", false);
+            depend(model, "in" + i, "hub", 1);
+            depend(model, "hub", "out" + i, 1);
+        }
+        model.computePackageDependencies();
+        PackageMetrics m = model.getMetrics();
+        assertTrue(m.isBetweennessSampled());
+        double exact = (double) leaves * leaves;
+        assertEquals(exact, betweenness(model, "hub"), exact * 0.2);
+        assertEquals(0.0, betweenness(model, "in0"), 1e-12);
+        assertEquals("hub", m.name(m.topByBetweenness(1)[0]));
+    }
+
+    @Test
+    void instabilityAbstractnessAndDistance() {
+        ProjectModel model = model("api", "app", "core", "idle");
+        model.addClass("api", "Port", true);
+        depend(model, "app", "api", 1);
+        depend(model, "api", "core", 1);
+        model.computePackageDependencies();
+        PackageMetrics m = model.getMetrics();
+        int api = model.getPackageId("api"), app = model.getPackageId("app");
+        int core = model.getPackageId("core"), idle = model.getPackageId("idle");
+
+        assertEquals(0.5, m.getInstability(api), 1e-12);
+        assertEquals(0.5, m.getAbstractness(api), 1e-12);
+        assertEquals(0.0, m.getDistance(api), 1e-12);
+
+        assertEquals(1.0, m.getInstability(app), 1e-12);
+        assertEquals(0.0, m.getDistance(app), 1e-12);
+
+        assertEquals(0.0, m.getInstability(core), 1e-12);
+        assertEquals(1.0, m.getDistance(core), 1e-12);
+
+        assertEquals(0.0, m.getInstability(idle), 1e-12);
+        assertEquals(1.0, m.getDistance(idle), 1e-12);
+        assertEquals(Arrays.asList(1, 1), Arrays.asList(m.getFanIn(api), m.getFanOut(api)));
+    }
+}
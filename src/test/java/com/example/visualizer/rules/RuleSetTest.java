@@ -0,0 +1,99 @@
+package com.example.visualizer.rules;
+
+import com.example.visualizer.model.Dependency;
+import com.example.visualizer.model.ProjectModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleSetTest {
+    private static boolean matches(String glob, String pkg) {
+        return Pattern.matches(RuleContext.toRegex(glob), pkg);
+    }
+
+    @Test
+    void singleStarStaysWithinOneSegment() {
+        assertTrue(matches("com.*.api", "com.shop.api"));
+        assertFalse(matches("com.*.api", "com.shop.orders.api"));
+        assertFalse(matches("com.*", "comx"));
+    }
+
+    @Test
+    void regexMetacharactersMatchLiterally() {
+        assertTrue(matches("gen.$proxy", "gen.$proxy"));
+        assertTrue(matches("gen.*$1", "gen.Outer$1"));
+        assertFalse(matches("a+b", "aab"));
+        assertTrue(matches("a+b", "a+b"));
+        assertTrue(matches("\u0443\u043a\u0440.*", "\u0443\u043a\u0440.\u043f"));
+    }
+
+    @Test
+    void trailingDoubleStarMatchesPackageAndSubpackages() {
+        assertTrue(matches("com.shop.**", "com.shop"));
+        assertTrue(matches("com.shop.**", "com.shop.orders.api"));
+        assertFalse(matches("com.shop.**", "com.shopping"));
+        assertTrue(matches("com.**.api", "com.shop.orders.api"));
+    }
+
+    @Test
+    void parsesRulesAndSkipsComments() {
+        RuleSet rules = RuleSet.parse(List.of(
+                "# architecture",
+                "layers ui > svc > data",
+                "deny data -> ui.**   # no upward calls",
+                "",
+                "no-cycles",
+                "allow-cycle a b",
+                "max-fan-out 3",
+                "max-depth 4 ui"));
+        assertEquals(5, rules.size());
+    }
+
+    @Test
+    void reportsLineOfInvalidRule() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> RuleSet.parse(List.of("no-cycles", "deny a b")));
+        assertTrue(e.getMessage().startsWith("Rule line 2:"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> RuleSet.parse(List.of("layers ui >")));
+        assertThrows(IllegalArgumentException.class, () -> RuleSet.parse(List.of("max-depth x")));
+        assertThrows(IllegalArgumentException.class, () -> RuleSet.parse(List.of("forbid a")));
+    }
+
+    @Test
+    void denyViolationMergesDuplicateExamples() {
+        ProjectModel model = new ProjectModel();
+        model.addClass("a", "A", false);
+        model.addClass("c", "C", false);
+        model.addDependency("a", "A", "c", "c.C", Dependency.Type.METHOD_CALL);
+        model.addDependency("a", "A", "c", "c.C", Dependency.Type.METHOD_CALL);
+        model.computePackageDependencies();
+        model.computeCycles();
+
+        List<Violation> violations = RuleSet.parse(List.of("deny a -> c")).check(model);
+        assertEquals(1, violations.size());
+        Violation.Link link = violations.get(0).getChain().get(0);
+        assertEquals(1, link.getExamples().size());
+        assertEquals(List.of(2), link.getCounts());
+    }
+
+    @Test
+    void noCyclesSeesCyclesAddedAfterAnEarlierCheck() {
+        ProjectModel model = new ProjectModel();
+        model.addClass("a", "A", false);
+        model.addClass("b", "B", false);
+        model.addDependency("a", "A", "b", "b.B", Dependency.Type.METHOD_CALL);
+        model.computePackageDependencies();
+        RuleSet rules = RuleSet.parse(List.of("no-cycles"));
+        assertTrue(rules.check(model).isEmpty());
+
+        model.addDependency("b", "B", "a", "a.A", Dependency.Type.METHOD_CALL);
+        model.computePackageDependencies();
+        List<Violation> violations = rules.check(model);
+        assertEquals(1, violations.size());
+        assertEquals(2, violations.get(0).getChain().size());
+        assertEquals(model.getSccId(model.getPackageId("a")), model.getSccId(model.getPackageId("b")));
+    }
+}